@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.entity.AppointmentEntity;
+import eu.cdevreeze.todo.entity.TaskEntity;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Test data for the benchmarks, as detached JPA entities, resembling the data returned by the services.
+ *
+ * @author Chris de Vreeze
+ */
+final class BenchmarkData {
+
+    private static final Instant origin = Instant.parse("2025-01-01T00:00:00Z");
+
+    // Appointments share a limited number of addresses, like they would in practice
+    private static final int ADDRESS_COUNT_FOR_APPOINTMENTS = 100;
+
+    private BenchmarkData() {
+    }
+
+    static ImmutableList<TaskEntity> taskEntities(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> {
+                    TaskEntity taskEntity = new TaskEntity();
+                    taskEntity.setId((long) i + 1);
+                    taskEntity.setName("task " + i);
+                    taskEntity.setDescription("description of task " + i);
+                    taskEntity.setTargetEnd((i % 2 == 0) ? origin.plus(i, ChronoUnit.MINUTES) : null);
+                    taskEntity.setExtraInformation((i % 3 == 0) ? "extra information of task " + i : null);
+                    taskEntity.setClosed(i % 4 == 0);
+                    return taskEntity;
+                })
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    static ImmutableList<AddressEntity> addressEntities(int size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> {
+                    AddressEntity addressEntity = new AddressEntity();
+                    addressEntity.setId((long) i + 1);
+                    addressEntity.setAddressName("address " + i);
+                    addressEntity.setAddressLine1("kerkstraat " + i);
+                    addressEntity.setAddressLine2((i % 2 == 0) ? "2e verdieping" : null);
+                    addressEntity.setZipCode("1234AB");
+                    addressEntity.setCity("Havenstad");
+                    addressEntity.setCountryCode("NL");
+                    return addressEntity;
+                })
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    static ImmutableList<AppointmentEntity> appointmentEntities(int size) {
+        ImmutableList<AddressEntity> addressEntities = addressEntities(ADDRESS_COUNT_FOR_APPOINTMENTS);
+
+        return IntStream.range(0, size)
+                .mapToObj(i -> {
+                    AppointmentEntity appointmentEntity = new AppointmentEntity();
+                    appointmentEntity.setId((long) i + 1);
+                    appointmentEntity.setName("appointment " + i);
+                    appointmentEntity.setStart(origin.plus(i, ChronoUnit.HOURS));
+                    appointmentEntity.setEnd(origin.plus(i, ChronoUnit.HOURS).plus(30, ChronoUnit.MINUTES));
+                    appointmentEntity.setAddress((i % 5 == 0) ? null : addressEntities.get(i % addressEntities.size()));
+                    appointmentEntity.setExtraInformation((i % 3 == 0) ? "extra information of appointment " + i : null);
+                    return appointmentEntity;
+                })
+                .collect(ImmutableList.toImmutableList());
+    }
+}
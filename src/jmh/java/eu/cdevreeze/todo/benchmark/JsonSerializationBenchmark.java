@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.benchmark;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.entity.AppointmentEntity;
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.web.messageconverter.MyHttpMessageConvertersConfiguration;
+import org.jspecify.annotations.NullUnmarked;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of serializing lists of model records to JSON, using the same JsonMapper as the HTTP message
+ * converters. The JSON is written to a discarding output stream, like a response body would be streamed,
+ * so the benchmark does not measure the building of huge byte arrays.
+ * <p>
+ * The "pipeline" benchmark measures the complete path of a GET endpoint after the query, from entities
+ * to models to JSON.
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+@NullUnmarked
+public class JsonSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private JsonMapper jsonMapper;
+
+    private ImmutableList<TaskEntity> taskEntities;
+    private ImmutableList<Task> tasks;
+    private ImmutableList<Address> addresses;
+    private ImmutableList<Appointment> appointments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.jsonMapper = new MyHttpMessageConvertersConfiguration().jsonMapper();
+
+        this.taskEntities = BenchmarkData.taskEntities(size);
+        this.tasks = taskEntities.stream().map(TaskEntity::toModel).collect(ImmutableList.toImmutableList());
+        this.addresses = BenchmarkData.addressEntities(size).stream()
+                .map(AddressEntity::toModel)
+                .collect(ImmutableList.toImmutableList());
+        this.appointments = BenchmarkData.appointmentEntities(size).stream()
+                .map(AppointmentEntity::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Benchmark
+    public void tasksToJson() throws IOException {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), tasks);
+    }
+
+    @Benchmark
+    public void addressesToJson() throws IOException {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), addresses);
+    }
+
+    @Benchmark
+    public void appointmentsToJson() throws IOException {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), appointments);
+    }
+
+    @Benchmark
+    public void tasksPipeline() throws IOException {
+        ImmutableList<Task> taskModels =
+                taskEntities.stream().map(TaskEntity::toModel).collect(ImmutableList.toImmutableList());
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), taskModels);
+    }
+}
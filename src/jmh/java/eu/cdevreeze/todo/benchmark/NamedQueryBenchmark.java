@@ -0,0 +1,183 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.benchmark;
+
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.entity.TaskEntity_;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.flywaydb.core.Flyway;
+import org.jspecify.annotations.NullUnmarked;
+import org.openjdk.jmh.annotations.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmark comparing the (former) per-call construction of criteria queries with the named queries used by
+ * the services. The benchmarked queries are small, so the per-call overhead of building and interpreting
+ * the query is a noticeable part of the total time. Run it with "-prof gc" to compare the allocations per
+ * operation as well.
+ * <p>
+ * Like the ProjectionQueryBenchmark, it uses a PostgreSQL test container (so Docker is needed).
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+@NullUnmarked
+public class NamedQueryBenchmark {
+
+    private static final int TASK_COUNT = 10000;
+    private static final int PAGE_SIZE = 20;
+
+    private PostgreSQLContainer<?> postgres;
+    private EntityManagerFactory entityManagerFactory;
+    private long minTaskId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        this.entityManagerFactory = Persistence.createEntityManagerFactory(
+                "todo",
+                Map.of(
+                        "jakarta.persistence.jdbc.url", postgres.getJdbcUrl(),
+                        "jakarta.persistence.jdbc.user", postgres.getUsername(),
+                        "jakarta.persistence.jdbc.password", postgres.getPassword()
+                )
+        );
+
+        this.minTaskId = inTransaction(em -> {
+            em.createNativeQuery("""
+                            insert into Task (name, description, target_end, closed)
+                            select 'task ' || g, 'description of task ' || g, now() + g * interval '1 minute', g % 4 = 0
+                              from generate_series(1, :taskCount) g""")
+                    .setParameter("taskCount", TASK_COUNT)
+                    .executeUpdate();
+            return em.createQuery("select min(t.id) from Task t", Long.class).getSingleResult();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<Tuple> findTaskWithCriteriaQuery() {
+        long id = randomTaskId();
+        return inTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+
+            Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
+            cq.where(cb.equal(taskRoot.get(TaskEntity_.id), id));
+            cq.select(taskTuple(cb, taskRoot));
+
+            return em.createQuery(cq).getResultList();
+        });
+    }
+
+    @Benchmark
+    public List<Tuple> findTaskWithNamedQuery() {
+        long id = randomTaskId();
+        return inTransaction(em -> em.createNamedQuery(TaskEntity.FIND_BY_ID, Tuple.class)
+                .setParameter("id", id)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Tuple> findOpenTaskPageWithCriteriaQuery() {
+        long afterId = randomTaskId();
+        return inTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+
+            Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
+            cq.where(
+                    cb.and(
+                            cb.greaterThan(taskRoot.get(TaskEntity_.id), afterId),
+                            cb.equal(taskRoot.get(TaskEntity_.closed), false)
+                    )
+            );
+            cq.orderBy(cb.asc(taskRoot.get(TaskEntity_.id)));
+            cq.select(taskTuple(cb, taskRoot));
+
+            return em.createQuery(cq).setMaxResults(PAGE_SIZE + 1).getResultList();
+        });
+    }
+
+    @Benchmark
+    public List<Tuple> findOpenTaskPageWithNamedQuery() {
+        long afterId = randomTaskId();
+        return inTransaction(em -> em.createNamedQuery(TaskEntity.FIND_PAGE_BY_CLOSED, Tuple.class)
+                .setParameter("closed", false)
+                .setParameter("afterId", afterId)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList());
+    }
+
+    private long randomTaskId() {
+        return minTaskId + ThreadLocalRandom.current().nextInt(TASK_COUNT);
+    }
+
+    /**
+     * The former projection of a task row, equivalent to the select clause of the named task queries.
+     */
+    private static CompoundSelection<Tuple> taskTuple(CriteriaBuilder cb, Root<TaskEntity> taskRoot) {
+        return cb.tuple(
+                taskRoot.get(TaskEntity_.id).alias(TaskEntity_.ID),
+                taskRoot.get(TaskEntity_.name).alias(TaskEntity_.NAME),
+                taskRoot.get(TaskEntity_.description).alias(TaskEntity_.DESCRIPTION),
+                taskRoot.get(TaskEntity_.targetEnd).alias(TaskEntity_.TARGET_END),
+                taskRoot.get(TaskEntity_.extraInformation).alias(TaskEntity_.EXTRA_INFORMATION),
+                taskRoot.get(TaskEntity_.closed).alias(TaskEntity_.CLOSED)
+        );
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> f) {
+        try (EntityManager em = entityManagerFactory.createEntityManager()) {
+            em.getTransaction().begin();
+            T result = f.apply(em);
+            em.getTransaction().commit();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AppointmentEntity;
+import eu.cdevreeze.todo.entity.AppointmentEntity_;
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.service.impl.BulkReadMode;
+import eu.cdevreeze.todo.service.impl.DefaultAppointmentService;
+import eu.cdevreeze.todo.service.impl.DefaultDataVersionService;
+import eu.cdevreeze.todo.service.impl.DefaultTaskService;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.flywaydb.core.Flyway;
+import org.jspecify.annotations.NullUnmarked;
+import org.openjdk.jmh.annotations.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmark comparing the read path of the services, which builds records directly from query tuples,
+ * with the former read path, which loads managed entities and then converts them to records.
+ * Run it with "-prof gc" to compare the allocations per operation as well.
+ * <p>
+ * The database is a PostgreSQL test container (so Docker is needed), migrated with the Flyway schema migrations,
+ * and filled with generated tasks and appointments.
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+@NullUnmarked
+public class ProjectionQueryBenchmark {
+
+    private static final int ADDRESS_COUNT = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private PostgreSQLContainer<?> postgres;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        this.entityManagerFactory = Persistence.createEntityManagerFactory(
+                "todo",
+                Map.of(
+                        "jakarta.persistence.jdbc.url", postgres.getJdbcUrl(),
+                        "jakarta.persistence.jdbc.user", postgres.getUsername(),
+                        "jakarta.persistence.jdbc.password", postgres.getPassword()
+                )
+        );
+
+        inTransaction(em -> {
+            em.createNativeQuery("""
+                            insert into Task (name, description, target_end, closed)
+                            select 'task ' || g, 'description of task ' || g, now() + g * interval '1 minute', g % 4 = 0
+                              from generate_series(1, :size) g""")
+                    .setParameter("size", size)
+                    .executeUpdate();
+            em.createNativeQuery("""
+                            insert into Address (name, address_line1, zip_code, city)
+                            select 'address ' || g, 'kerkstraat ' || g, '1234AB', 'Havenstad'
+                              from generate_series(1, :addressCount) g""")
+                    .setParameter("addressCount", ADDRESS_COUNT)
+                    .executeUpdate();
+            return em.createNativeQuery("""
+                            insert into Appointment (name, start, end_date_time, address_id)
+                            select 'appointment ' || g, now() + g * interval '1 hour', now() + g * interval '1 hour' + interval '30 minutes',
+                                   (select min(id) from Address) + g % :addressCount
+                              from generate_series(1, :size) g""")
+                    .setParameter("size", size)
+                    .setParameter("addressCount", ADDRESS_COUNT)
+                    .executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public ImmutableList<Task> findAllTasksAsProjection() {
+        return inTransaction(em -> new DefaultTaskService(em, new DefaultDataVersionService(), BulkReadMode.ENTITY_MANAGER).findAllTasks());
+    }
+
+    @Benchmark
+    public ImmutableList<Task> findAllTasksAsEntities() {
+        return inTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
+
+            Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
+            cq.select(taskRoot);
+
+            return em.createQuery(cq)
+                    .getResultStream()
+                    .map(TaskEntity::toModel)
+                    .collect(ImmutableList.toImmutableList());
+        });
+    }
+
+    @Benchmark
+    public ImmutableList<Appointment> findAllAppointmentsAsProjection() {
+        return inTransaction(em -> new DefaultAppointmentService(em, new DefaultDataVersionService(), BulkReadMode.ENTITY_MANAGER).findAllAppointments());
+    }
+
+    @Benchmark
+    public ImmutableList<Appointment> findAllAppointmentsAsEntities() {
+        return inTransaction(em -> {
+            EntityGraph<AppointmentEntity> eg = em.createEntityGraph(AppointmentEntity.class);
+            eg.addSubgraph(AppointmentEntity_.address);
+
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<AppointmentEntity> cq = cb.createQuery(AppointmentEntity.class);
+
+            Root<AppointmentEntity> appointmentRoot = cq.from(AppointmentEntity.class);
+            cq.select(appointmentRoot);
+
+            return em.createQuery(cq)
+                    .setHint("jakarta.persistence.fetchgraph", eg)
+                    .getResultStream()
+                    .map(AppointmentEntity::toModel)
+                    .collect(ImmutableList.toImmutableList());
+        });
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> f) {
+        try (EntityManager em = entityManagerFactory.createEntityManager()) {
+            em.getTransaction().begin();
+            T result = f.apply(em);
+            em.getTransaction().commit();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.entity.AppointmentEntity;
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.model.Task;
+import org.jspecify.annotations.NullUnmarked;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of converting lists of JPA entities to lists of immutable model records, as done by the services
+ * for every query.
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+@NullUnmarked
+public class ToModelBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private ImmutableList<TaskEntity> taskEntities;
+    private ImmutableList<AddressEntity> addressEntities;
+    private ImmutableList<AppointmentEntity> appointmentEntities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.taskEntities = BenchmarkData.taskEntities(size);
+        this.addressEntities = BenchmarkData.addressEntities(size);
+        this.appointmentEntities = BenchmarkData.appointmentEntities(size);
+    }
+
+    @Benchmark
+    public ImmutableList<Task> tasksToModel() {
+        return taskEntities.stream().map(TaskEntity::toModel).collect(ImmutableList.toImmutableList());
+    }
+
+    @Benchmark
+    public ImmutableList<Address> addressesToModel() {
+        return addressEntities.stream().map(AddressEntity::toModel).collect(ImmutableList.toImmutableList());
+    }
+
+    @Benchmark
+    public ImmutableList<Appointment> appointmentsToModel() {
+        return appointmentEntities.stream().map(AppointmentEntity::toModel).collect(ImmutableList.toImmutableList());
+    }
+}
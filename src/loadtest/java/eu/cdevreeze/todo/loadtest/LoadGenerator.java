@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator, sending requests at the target rate of the workload profile, whether or not earlier
+ * requests have completed (like independent users would). Each request is sent from its own virtual thread. The
+ * operation and parameters of each request are chosen on the scheduling thread, from a Random seeded by the
+ * workload profile, so each run sends the same sequence of requests.
+ * <p>
+ * The number of requests in flight is bounded. If that bound is reached, the application does not keep up,
+ * and scheduled requests are dropped (and reported as such) instead of delaying the schedule.
+ *
+ * @author Chris de Vreeze
+ */
+final class LoadGenerator {
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final WorkloadProfile profile;
+    private final Random random;
+    private long sequenceNumber;
+
+    LoadGenerator(HttpClient httpClient, String baseUrl, WorkloadProfile profile) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.profile = profile;
+        this.random = new Random(profile.seed());
+    }
+
+    /**
+     * Generates load for the given duration, and returns the report of the run. Waits for requests still in flight
+     * at the end of the duration, so their latencies are included in the report.
+     */
+    LoadReport run(Duration duration) {
+        Instant startedAt = Instant.now();
+        Map<Operation, OperationRecorder> recorders = new EnumMap<>(Operation.class);
+        profile.mix().keySet().forEach(operation -> recorders.put(operation, new OperationRecorder()));
+        Semaphore inFlight = new Semaphore(profile.maxInFlight());
+
+        long intervalNanos = Math.round(1_000_000_000L / profile.targetRate());
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+        long scheduledCount = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduledNanos = startNanos + i * intervalNanos;
+                if (scheduledNanos >= endNanos) {
+                    break;
+                }
+                parkUntil(scheduledNanos);
+
+                Operation operation = profile.pickOperation(random);
+                HttpRequest request = operation.newRequest(baseUrl, profile, random, sequenceNumber++);
+                OperationRecorder recorder = recorders.get(operation);
+                scheduledCount += 1;
+
+                if (!inFlight.tryAcquire()) {
+                    recorder.recordDropped();
+                    continue;
+                }
+                executor.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.recordResponse(response.statusCode(), System.nanoTime() - scheduledNanos);
+                    } catch (IOException e) {
+                        recorder.recordTransportError(System.nanoTime() - scheduledNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+
+        OperationRecorder overall = new OperationRecorder();
+        recorders.values().forEach(overall::addAll);
+        return new LoadReport(
+                profile.name(),
+                startedAt,
+                System.getProperty("java.version"),
+                profile,
+                elapsedSeconds,
+                scheduledCount / elapsedSeconds,
+                overall.summarize(elapsedSeconds),
+                recorders.entrySet().stream().collect(ImmutableSortedMap.toImmutableSortedMap(
+                        String::compareTo,
+                        entry -> entry.getKey().externalName(),
+                        entry -> entry.getValue().summarize(elapsedSeconds)
+                ))
+        );
+    }
+
+    private static void parkUntil(long nanoTime) {
+        long remainingNanos;
+        while ((remainingNanos = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+}
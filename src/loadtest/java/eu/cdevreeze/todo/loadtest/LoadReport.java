@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.time.Instant;
+
+/**
+ * Immutable machine-readable report of one run of a workload profile, written as JSON. Dropped requests (not sent,
+ * because too many requests were in flight) count as errors, since they mean the application did not keep up with
+ * the target rate. Latencies are in milliseconds.
+ *
+ * @author Chris de Vreeze
+ */
+record LoadReport(
+        String profile,
+        Instant startedAt,
+        String javaVersion,
+        WorkloadProfile settings,
+        double elapsedSeconds,
+        double achievedRequestRate,
+        OperationSummary overall,
+        ImmutableSortedMap<String, OperationSummary> operations
+) {
+
+    record OperationSummary(
+            long requests,
+            long successes,
+            long errors,
+            double errorRate,
+            double throughputPerSecond,
+            LatencySummary latencyMillis,
+            ImmutableSortedMap<String, Long> outcomes
+    ) {
+    }
+
+    record LatencySummary(
+            double mean,
+            double p50,
+            double p90,
+            double p95,
+            double p99,
+            double p999,
+            double max
+    ) {
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import eu.cdevreeze.todo.TodoApplication;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Entry point of the load-test harness. For each workload profile given as program argument (default "mixed"),
+ * it starts a fresh PostgreSQL test container (so Docker is needed) and the entire application, inserts the test
+ * data of the profile, generates load for the warmup duration (not reported), and then generates load for the
+ * measurement duration. The report of the latter is written as JSON to the report directory (system property
+ * "loadtest.report-dir", default "target/loadtest"), and summarized on stdout.
+ * <p>
+ * Instead of a test container, an existing (empty) database can be used, by passing system properties
+ * "loadtest.datasource.url", "loadtest.datasource.username" and "loadtest.datasource.password".
+ *
+ * @author Chris de Vreeze
+ */
+public final class LoadTest {
+
+    private static final DateTimeFormatter REPORT_TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT).withZone(ZoneOffset.UTC);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> profileNames = args.length == 0 ? List.of("mixed") : List.of(args);
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/loadtest"));
+        Files.createDirectories(reportDir);
+        ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+
+        for (String profileName : profileNames) {
+            WorkloadProfile profile = WorkloadProfile.load(profileName);
+            LoadReport report = run(profile);
+
+            Path reportFile = reportDir.resolve(
+                    String.format("%s-%s.json", profile.name(), REPORT_TIMESTAMP_FORMAT.format(report.startedAt())));
+            objectMapper.writeValue(reportFile.toFile(), report);
+            printSummary(report, reportFile);
+        }
+    }
+
+    private static LoadReport run(WorkloadProfile profile) {
+        try (Database database = Database.provision()) {
+            List<String> applicationArgs = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--spring.datasource.url=" + database.url(),
+                    "--spring.datasource.username=" + database.username(),
+                    "--spring.datasource.password=" + database.password()
+            ));
+            profile.applicationProperties().forEach((key, value) -> applicationArgs.add("--" + key + "=" + value));
+
+            try (ServletWebServerApplicationContext applicationContext = (ServletWebServerApplicationContext)
+                    new SpringApplicationBuilder(TodoApplication.class).run(applicationArgs.toArray(String[]::new));
+                 HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()) {
+                TestData.insert(applicationContext.getBean(JdbcTemplate.class), profile);
+
+                String baseUrl = String.format("http://localhost:%d", applicationContext.getWebServer().getPort());
+                LoadGenerator loadGenerator = new LoadGenerator(httpClient, baseUrl, profile);
+                loadGenerator.run(profile.warmup());
+                return loadGenerator.run(profile.duration());
+            }
+        }
+    }
+
+    private static void printSummary(LoadReport report, Path reportFile) {
+        System.out.printf(
+                "%nWorkload profile %s: %.1f requests/s scheduled (target %.1f), report in %s%n",
+                report.profile(), report.achievedRequestRate(), report.settings().targetRate(), reportFile
+        );
+        System.out.printf("%-30s %9s %8s %10s %9s %9s %9s %9s%n", "operation", "requests", "errors", "ok/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        report.operations().forEach((operation, summary) -> printSummaryLine(operation, summary));
+        printSummaryLine("overall", report.overall());
+    }
+
+    private static void printSummaryLine(String operation, LoadReport.OperationSummary summary) {
+        System.out.printf(
+                "%-30s %9d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                operation,
+                summary.requests(),
+                summary.errors(),
+                summary.throughputPerSecond(),
+                summary.latencyMillis().p50(),
+                summary.latencyMillis().p95(),
+                summary.latencyMillis().p99(),
+                summary.latencyMillis().max()
+        );
+    }
+
+    private record Database(
+            String url,
+            String username,
+            String password,
+            @Nullable PostgreSQLContainer<?> container
+    ) implements AutoCloseable {
+
+        static Database provision() {
+            String url = System.getProperty("loadtest.datasource.url");
+            if (url != null) {
+                return new Database(
+                        url,
+                        System.getProperty("loadtest.datasource.username", "postgres"),
+                        System.getProperty("loadtest.datasource.password", "postgres"),
+                        null
+                );
+            }
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+            return new Database(container.getJdbcUrl(), container.getUsername(), container.getPassword(), container);
+        }
+
+        @Override
+        public void close() {
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+}
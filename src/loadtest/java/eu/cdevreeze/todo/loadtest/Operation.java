@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Kind of request sent by the load generator. The random request parameters (such as time ranges and search terms)
+ * only depend on the given Random, so a workload profile with a fixed seed sends the same sequence of requests.
+ *
+ * @author Chris de Vreeze
+ */
+enum Operation {
+
+    GET_TASKS {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            String closedFilter = switch (random.nextInt(3)) {
+                case 0 -> "&closed=false";
+                case 1 -> "&closed=true";
+                default -> "";
+            };
+            return get(baseUrl + "/tasks.json?pageSize=" + PAGE_SIZE + closedFilter, JSON);
+        }
+    },
+    POST_TASK {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            String name = "loadtest-new-task-" + sequenceNumber;
+            String json = String.format(
+                    "{ \"name\": \"%s\", \"description\": \"%s\", \"targetEndOption\": null, \"extraInformationOption\": null, \"closed\": false }",
+                    name,
+                    TestData.randomDescription(random)
+            );
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/tasks.json"))
+                    .header("Content-Type", JSON)
+                    .header("Accept", JSON)
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        }
+    },
+    GET_APPOINTMENTS_BETWEEN {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            return get(appointmentsUrl(baseUrl, profile, random) + "&overlapping=false", JSON);
+        }
+    },
+    GET_APPOINTMENTS_OVERLAPPING {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            return get(appointmentsUrl(baseUrl, profile, random) + "&overlapping=true", JSON);
+        }
+    },
+    TASKS_PAGE {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            return get(baseUrl + "/tasks?pageSize=" + PAGE_SIZE, HTML);
+        }
+    },
+    SEARCH_PAGE {
+        @Override
+        HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber) {
+            String query = TestData.WORDS.get(random.nextInt(TestData.WORDS.size()));
+            return get(baseUrl + "/search?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8), HTML);
+        }
+    };
+
+    private static final String JSON = "application/json";
+    private static final String HTML = "text/html";
+    private static final int PAGE_SIZE = 20;
+    private static final Duration APPOINTMENT_RANGE = Duration.ofDays(1);
+
+    abstract HttpRequest newRequest(String baseUrl, WorkloadProfile profile, Random random, long sequenceNumber);
+
+    /**
+     * Returns the name of the operation as used in workload profiles and reports, such as "get-tasks".
+     */
+    @JsonValue
+    String externalName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Operation fromExternalName(String externalName) {
+        return valueOf(externalName.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    private static String appointmentsUrl(String baseUrl, WorkloadProfile profile, Random random) {
+        // The generated appointments start one hour apart, so this range contains about 24 of them
+        Instant start = TestData.APPOINTMENTS_ORIGIN.plus(
+                Duration.ofHours(random.nextInt(Math.max(profile.appointmentCount(), 1)))
+        );
+        return String.format("%s/appointments.json?start=%s&end=%s", baseUrl, start, start.plus(APPOINTMENT_RANGE));
+    }
+
+    private static HttpRequest get(String url, String accept) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Accept", accept).GET().build();
+    }
+}
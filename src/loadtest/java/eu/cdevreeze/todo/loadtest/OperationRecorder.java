@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thread-safe recorder of the outcomes of the requests of one operation (or of all operations) during one run.
+ * Latencies are measured from the time the request was scheduled to be sent, not from the time it was actually sent,
+ * so that a server that falls behind cannot hide its queueing delay by slowing down the load generator
+ * ("coordinated omission").
+ *
+ * @author Chris de Vreeze
+ */
+final class OperationRecorder {
+
+    static final String TRANSPORT_ERROR = "transport-error";
+    static final String DROPPED = "dropped";
+
+    private final List<Long> latencyNanos = new ArrayList<>();
+    private final Map<String, Long> outcomeCounts = new TreeMap<>();
+
+    /**
+     * Records a response with the given HTTP status code.
+     */
+    synchronized void recordResponse(int statusCode, long latencyNanos) {
+        this.latencyNanos.add(latencyNanos);
+        outcomeCounts.merge(String.valueOf(statusCode), 1L, Long::sum);
+    }
+
+    /**
+     * Records a request that failed without response, such as a refused or reset connection.
+     */
+    synchronized void recordTransportError(long latencyNanos) {
+        this.latencyNanos.add(latencyNanos);
+        outcomeCounts.merge(TRANSPORT_ERROR, 1L, Long::sum);
+    }
+
+    /**
+     * Records a request that was not sent, because the maximum number of requests in flight had been reached.
+     */
+    synchronized void recordDropped() {
+        outcomeCounts.merge(DROPPED, 1L, Long::sum);
+    }
+
+    synchronized void addAll(OperationRecorder other) {
+        latencyNanos.addAll(other.latencyNanos);
+        other.outcomeCounts.forEach((outcome, count) -> outcomeCounts.merge(outcome, count, Long::sum));
+    }
+
+    synchronized LoadReport.OperationSummary summarize(double elapsedSeconds) {
+        long[] sortedLatencies = latencyNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        long requestCount = outcomeCounts.values().stream().mapToLong(Long::longValue).sum();
+        long successCount = outcomeCounts.entrySet().stream()
+                .filter(entry -> isSuccess(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        long errorCount = requestCount - successCount;
+
+        return new LoadReport.OperationSummary(
+                requestCount,
+                successCount,
+                errorCount,
+                requestCount == 0 ? 0.0 : (double) errorCount / requestCount,
+                successCount / elapsedSeconds,
+                new LoadReport.LatencySummary(
+                        millis(Arrays.stream(sortedLatencies).average().orElse(0)),
+                        millis(percentile(sortedLatencies, 0.50)),
+                        millis(percentile(sortedLatencies, 0.90)),
+                        millis(percentile(sortedLatencies, 0.95)),
+                        millis(percentile(sortedLatencies, 0.99)),
+                        millis(percentile(sortedLatencies, 0.999)),
+                        millis(sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1])
+                ),
+                ImmutableSortedMap.copyOf(outcomeCounts)
+        );
+    }
+
+    private static boolean isSuccess(String outcome) {
+        return !outcome.equals(TRANSPORT_ERROR) && !outcome.equals(DROPPED) && Integer.parseInt(outcome) < 400;
+    }
+
+    /**
+     * Returns the percentile with the "nearest rank" method.
+     */
+    private static long percentile(long[] sortedValues, double fraction) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        return sortedValues[Math.max((int) Math.ceil(sortedValues.length * fraction) - 1, 0)];
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
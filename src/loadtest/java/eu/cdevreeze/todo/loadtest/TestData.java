@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Generation of the test data of a workload profile, inserted with plain JDBC batches before the load starts.
+ * Given the seed of the workload profile, the generated data is always the same.
+ *
+ * @author Chris de Vreeze
+ */
+final class TestData {
+
+    static final Instant APPOINTMENTS_ORIGIN = Instant.parse("2030-01-01T00:00:00Z");
+
+    static final ImmutableList<String> WORDS = ImmutableList.of(
+            "stofzuigen", "opruimen", "kamer", "keuken", "tuin", "boodschappen", "tandarts", "fiets",
+            "garage", "verven", "schuur", "administratie", "belasting", "verzekering", "auto", "zolder"
+    );
+
+    private static final int BATCH_SIZE = 1000;
+
+    private TestData() {
+    }
+
+    static void insert(JdbcTemplate jdbcTemplate, WorkloadProfile profile) {
+        Random random = new Random(profile.seed());
+
+        insertInBatches(
+                jdbcTemplate,
+                "insert into Address (name, address_line1, zip_code, city, country_code) values (?, ?, ?, ?, 'NL')",
+                IntStream.range(0, profile.addressCount())
+                        .mapToObj(i -> new Object[]{
+                                "loadtest-address-" + i, randomWord(random) + "straat " + (i + 1), "1234AB", "Havenstad"
+                        })
+                        .toList()
+        );
+
+        List<Long> addressIds = jdbcTemplate.queryForList(
+                "select id from Address where name like 'loadtest-address-%' order by id", Long.class);
+        insertInBatches(
+                jdbcTemplate,
+                "insert into Appointment (name, start, end_date_time, address_id, extra_information) values (?, ?, ?, ?, ?)",
+                IntStream.range(0, profile.appointmentCount())
+                        .mapToObj(i -> {
+                            Instant start = APPOINTMENTS_ORIGIN.plus(Duration.ofHours(i));
+                            return new Object[]{
+                                    "loadtest-appointment-" + i + " " + randomWord(random),
+                                    Timestamp.from(start),
+                                    Timestamp.from(start.plus(Duration.ofMinutes(30 + random.nextInt(120)))),
+                                    random.nextInt(5) == 0 ? null : addressIds.get(random.nextInt(addressIds.size())),
+                                    random.nextBoolean() ? randomDescription(random) : null
+                            };
+                        })
+                        .toList()
+        );
+
+        insertInBatches(
+                jdbcTemplate,
+                "insert into Task (name, description, target_end, extra_information, closed) values (?, ?, ?, ?, ?)",
+                IntStream.range(0, profile.taskCount())
+                        .mapToObj(i -> new Object[]{
+                                "loadtest-task-" + i,
+                                randomDescription(random),
+                                random.nextBoolean() ? Timestamp.from(APPOINTMENTS_ORIGIN.plus(Duration.ofDays(random.nextInt(365)))) : null,
+                                random.nextInt(3) == 0 ? randomDescription(random) : null,
+                                random.nextInt(4) == 0
+                        })
+                        .toList()
+        );
+    }
+
+    static String randomDescription(Random random) {
+        return String.join(" ", randomWord(random), randomWord(random), randomWord(random));
+    }
+
+    private static String randomWord(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private static void insertInBatches(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (List<Object[]> batch : Lists.partition(rows, BATCH_SIZE)) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+}
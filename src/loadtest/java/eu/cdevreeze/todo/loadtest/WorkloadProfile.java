@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.loadtest;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Immutable workload profile, loaded from a properties file. It contains the target request rate, the warmup and
+ * measurement durations, the seed of all random choices, the amount of generated test data, the relative weights
+ * of the operations (the request mix), and extra application properties (for comparing configurations).
+ * <p>
+ * Example properties: "target-rate=200", "duration=60s", "seed=42", "data.tasks=10000", "mix.get-tasks=40",
+ * and "app.spring.threads.virtual.enabled=true". See the profiles in "loadtest" on the classpath.
+ *
+ * @author Chris de Vreeze
+ */
+record WorkloadProfile(
+        String name,
+        double targetRate,
+        Duration warmup,
+        Duration duration,
+        long seed,
+        int maxInFlight,
+        int taskCount,
+        int addressCount,
+        int appointmentCount,
+        ImmutableMap<Operation, Integer> mix,
+        ImmutableMap<String, String> applicationProperties
+) {
+
+    private static final String MIX_PREFIX = "mix.";
+    private static final String APP_PREFIX = "app.";
+
+    WorkloadProfile {
+        Preconditions.checkArgument(targetRate > 0, "The target rate must be positive");
+        Preconditions.checkArgument(maxInFlight > 0, "The maximum number of requests in flight must be positive");
+        Preconditions.checkArgument(addressCount > 0 || appointmentCount == 0, "Appointments need addresses");
+        Preconditions.checkArgument(
+                mix.values().stream().allMatch(weight -> weight >= 0) && mix.values().stream().mapToInt(w -> w).sum() > 0,
+                "The weights of the request mix must not be negative, and must not all be 0"
+        );
+    }
+
+    /**
+     * Picks the next operation, with a probability proportional to its weight in the request mix.
+     */
+    Operation pickOperation(Random random) {
+        int totalWeight = mix.values().stream().mapToInt(w -> w).sum();
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * Loads the workload profile with the given name from "loadtest/<name>.properties" on the classpath,
+     * or from the given file if the name ends with ".properties".
+     */
+    static WorkloadProfile load(String nameOrFile) {
+        Properties properties = new Properties();
+        String name;
+        try {
+            if (nameOrFile.endsWith(".properties")) {
+                Path file = Path.of(nameOrFile);
+                name = file.getFileName().toString().replaceFirst("\\.properties$", "");
+                try (InputStream is = Files.newInputStream(file)) {
+                    properties.load(is);
+                }
+            } else {
+                name = nameOrFile;
+                try (InputStream is = WorkloadProfile.class.getResourceAsStream("/loadtest/" + name + ".properties")) {
+                    Preconditions.checkArgument(is != null, "Unknown workload profile: %s", name);
+                    properties.load(is);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fromProperties(name, properties);
+    }
+
+    private static WorkloadProfile fromProperties(String name, Properties properties) {
+        ImmutableMap.Builder<Operation, Integer> mix = ImmutableMap.builder();
+        ImmutableMap.Builder<String, String> applicationProperties = ImmutableMap.builder();
+        // Sorted, so the mix does not depend on the iteration order of the Properties
+        properties.stringPropertyNames().stream().sorted().forEach(key -> {
+            if (key.startsWith(MIX_PREFIX)) {
+                mix.put(Operation.fromExternalName(key.substring(MIX_PREFIX.length())), Integer.parseInt(properties.getProperty(key).strip()));
+            } else if (key.startsWith(APP_PREFIX)) {
+                applicationProperties.put(key.substring(APP_PREFIX.length()), properties.getProperty(key).strip());
+            }
+        });
+
+        return new WorkloadProfile(
+                name,
+                Double.parseDouble(properties.getProperty("target-rate", "100")),
+                DurationStyle.detectAndParse(properties.getProperty("warmup", "10s")),
+                DurationStyle.detectAndParse(properties.getProperty("duration", "60s")),
+                Long.parseLong(properties.getProperty("seed", "42")),
+                Integer.parseInt(properties.getProperty("max-in-flight", "500")),
+                Integer.parseInt(properties.getProperty("data.tasks", "10000")),
+                Integer.parseInt(properties.getProperty("data.addresses", "200")),
+                Integer.parseInt(properties.getProperty("data.appointments", "10000")),
+                mix.build(),
+                applicationProperties.build()
+        );
+    }
+}
@@ -19,23 +19,51 @@ package eu.cdevreeze.todo.entity;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.todo.model.Address;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.Objects;
 import java.util.stream.Stream;
 
 /**
- * Address JPA entity.
+ * Address JPA entity. Addresses are reference data, rarely changing, so they are kept in the
+ * second-level cache, both by ID and by (natural ID) address name.
+ * <p>
+ * Like for tasks, the select queries among the named queries return tuples with the field names as aliases.
  *
  * @author Chris de Vreeze
  */
 @Entity(name = "Address")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AddressEntity.CACHE_REGION)
+@NaturalIdCache(region = AddressEntity.NATURAL_ID_CACHE_REGION)
+@BatchSize(size = 50)
+@NamedQuery(name = AddressEntity.FIND_ALL, query = AddressEntity.SELECT_TUPLE)
+@NamedQuery(name = AddressEntity.FIND_ALL_ORDERED_BY_ID, query = AddressEntity.SELECT_TUPLE + " order by a.id")
+@NamedQuery(name = AddressEntity.DELETE_ALL, query = "delete from Address a")
 public class AddressEntity {
 
+    public static final String CACHE_REGION = "address";
+    public static final String NATURAL_ID_CACHE_REGION = "addressByName";
+
+    public static final String FIND_ALL = "Address.findAll";
+    public static final String FIND_ALL_ORDERED_BY_ID = "Address.findAllOrderedById";
+    public static final String DELETE_ALL = "Address.deleteAll";
+
+    static final String SELECT_TUPLE = "select a.id as id, a.addressName as addressName, " +
+            "a.addressLine1 as addressLine1, a.addressLine2 as addressLine2, a.addressLine3 as addressLine3, " +
+            "a.addressLine4 as addressLine4, a.zipCode as zipCode, a.city as city, a.countryCode as countryCode " +
+            "from Address a";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Address_seq_gen")
-    @SequenceGenerator(name = "Address_seq_gen", sequenceName = "Address_seq", allocationSize = 1)
+    @SequenceGenerator(name = "Address_seq_gen", sequenceName = "Address_seq", allocationSize = 50)
     private Long id;
 
+    @NaturalId
     @Column(name = "name", nullable = false, unique = true)
     private String addressName;
 
@@ -25,15 +25,44 @@ import java.util.stream.Stream;
 
 /**
  * Appointment JPA entity.
+ * <p>
+ * Like for tasks, the select queries among the named queries return tuples with the field names as aliases.
+ * Instead of the address, they return its ID (as "addressId"), taken from the foreign key column without any join.
  *
  * @author Chris de Vreeze
  */
 @Entity(name = "Appointment")
+@NamedQuery(name = AppointmentEntity.FIND_ALL, query = AppointmentEntity.SELECT_TUPLE)
+@NamedQuery(name = AppointmentEntity.FIND_ALL_ORDERED_BY_ID, query = AppointmentEntity.SELECT_TUPLE + " order by a.id")
+@NamedQuery(
+        name = AppointmentEntity.FIND_BETWEEN,
+        query = AppointmentEntity.SELECT_TUPLE + " where a.start >= :start and a.end < :end"
+)
+@NamedQuery(
+        name = AppointmentEntity.FIND_OVERLAPPING,
+        query = AppointmentEntity.SELECT_TUPLE + " where a.start < :end and a.end > :start"
+)
+@NamedQuery(name = AppointmentEntity.FIND_ENDING_AFTER, query = AppointmentEntity.SELECT_TUPLE + " where a.end > :end")
+@NamedQuery(name = AppointmentEntity.FIND_ENDING_BEFORE, query = AppointmentEntity.SELECT_TUPLE + " where a.end < :end")
+@NamedQuery(name = AppointmentEntity.DELETE_ALL, query = "delete from Appointment a")
 public class AppointmentEntity {
 
+    public static final String FIND_ALL = "Appointment.findAll";
+    public static final String FIND_ALL_ORDERED_BY_ID = "Appointment.findAllOrderedById";
+    public static final String FIND_BETWEEN = "Appointment.findBetween";
+    public static final String FIND_OVERLAPPING = "Appointment.findOverlapping";
+    public static final String FIND_ENDING_AFTER = "Appointment.findEndingAfter";
+    public static final String FIND_ENDING_BEFORE = "Appointment.findEndingBefore";
+    public static final String DELETE_ALL = "Appointment.deleteAll";
+
+    public static final String ADDRESS_ID = "addressId";
+
+    static final String SELECT_TUPLE = "select a.id as id, a.name as name, a.start as start, a.end as end, " +
+            "a.address.id as addressId, a.extraInformation as extraInformation from Appointment a";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Appointment_seq_gen")
-    @SequenceGenerator(name = "Appointment_seq_gen", sequenceName = "Appointment_seq", allocationSize = 1)
+    @SequenceGenerator(name = "Appointment_seq_gen", sequenceName = "Appointment_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -25,15 +25,84 @@ import java.util.stream.Stream;
 
 /**
  * Task JPA entity.
+ * <p>
+ * The named queries are parsed and validated once, at startup, and their SQL is cached by Hibernate, so using them
+ * only costs parameter binding. The select queries return tuples with the field names as aliases.
+ * <p>
+ * The version is used for optimistic locking. Besides Hibernate's own version check when updating managed
+ * entities, the {@link #UPDATE_IF_VERSION_MATCHES} query updates a task without loading it first, only if its
+ * version still matches, and increments the version.
  *
  * @author Chris de Vreeze
  */
 @Entity(name = "Task")
+@NamedQuery(name = TaskEntity.FIND_ALL, query = TaskEntity.SELECT_TUPLE)
+@NamedQuery(name = TaskEntity.FIND_ALL_BY_CLOSED, query = TaskEntity.SELECT_TUPLE + " where t.closed = :closed")
+@NamedQuery(name = TaskEntity.FIND_ALL_ORDERED_BY_ID, query = TaskEntity.SELECT_TUPLE + " order by t.id")
+@NamedQuery(
+        name = TaskEntity.FIND_PAGE,
+        query = TaskEntity.SELECT_TUPLE + " where t.id > :afterId order by t.id"
+)
+@NamedQuery(
+        name = TaskEntity.FIND_PAGE_BY_CLOSED,
+        query = TaskEntity.SELECT_TUPLE + " where t.id > :afterId and t.closed = :closed order by t.id"
+)
+@NamedQuery(name = TaskEntity.FIND_HAVING_TARGET_END_AFTER, query = TaskEntity.SELECT_TUPLE + " where t.targetEnd > :end")
+@NamedQuery(name = TaskEntity.FIND_HAVING_TARGET_END_BEFORE, query = TaskEntity.SELECT_TUPLE + " where t.targetEnd < :end")
+@NamedQuery(name = TaskEntity.FIND_BY_ID, query = TaskEntity.SELECT_TUPLE + " where t.id = :id")
+@NamedQuery(name = TaskEntity.FIND_BY_NAME, query = TaskEntity.SELECT_TUPLE + " where t.name = :name")
+@NamedQuery(name = TaskEntity.FIND_NAMES_IN, query = "select t.name from Task t where t.name in :names")
+@NamedQuery(name = TaskEntity.FIND_NAMES_BY_IDS, query = "select t.name from Task t where t.id in :ids")
+@NamedQuery(
+        name = TaskEntity.UPDATE_IF_VERSION_MATCHES,
+        query = "update Task t set t.description = :description, t.targetEnd = :targetEnd, " +
+                "t.extraInformation = :extraInformation, t.closed = :closed, t.version = t.version + 1 " +
+                "where t.id = :id and t.name = :name and t.version = :version"
+)
+@NamedQuery(
+        name = TaskEntity.UPDATE_ANY_VERSION,
+        query = "update Task t set t.description = :description, t.targetEnd = :targetEnd, " +
+                "t.extraInformation = :extraInformation, t.closed = :closed, t.version = t.version + 1 " +
+                "where t.id = :id and t.name = :name"
+)
+@NamedQuery(name = TaskEntity.DELETE_BY_ID, query = "delete from Task t where t.id = :id")
+@NamedQuery(name = TaskEntity.DELETE_BY_IDS, query = "delete from Task t where t.id in :ids")
+@NamedQuery(name = TaskEntity.DELETE_BY_CLOSED, query = "delete from Task t where t.closed = :closed")
+@NamedQuery(name = TaskEntity.DELETE_HAVING_TARGET_END_BEFORE, query = "delete from Task t where t.targetEnd < :end")
+@NamedQuery(
+        name = TaskEntity.DELETE_BY_CLOSED_HAVING_TARGET_END_BEFORE,
+        query = "delete from Task t where t.closed = :closed and t.targetEnd < :end"
+)
+@NamedQuery(name = TaskEntity.DELETE_ALL, query = "delete from Task t")
 public class TaskEntity {
 
+    public static final String FIND_ALL = "Task.findAll";
+    public static final String FIND_ALL_BY_CLOSED = "Task.findAllByClosed";
+    public static final String FIND_ALL_ORDERED_BY_ID = "Task.findAllOrderedById";
+    public static final String FIND_PAGE = "Task.findPage";
+    public static final String FIND_PAGE_BY_CLOSED = "Task.findPageByClosed";
+    public static final String FIND_HAVING_TARGET_END_AFTER = "Task.findHavingTargetEndAfter";
+    public static final String FIND_HAVING_TARGET_END_BEFORE = "Task.findHavingTargetEndBefore";
+    public static final String FIND_BY_ID = "Task.findById";
+    public static final String FIND_BY_NAME = "Task.findByName";
+    public static final String FIND_NAMES_IN = "Task.findNamesIn";
+    public static final String FIND_NAMES_BY_IDS = "Task.findNamesByIds";
+    public static final String UPDATE_IF_VERSION_MATCHES = "Task.updateIfVersionMatches";
+    public static final String UPDATE_ANY_VERSION = "Task.updateAnyVersion";
+    public static final String DELETE_BY_ID = "Task.deleteById";
+    public static final String DELETE_BY_IDS = "Task.deleteByIds";
+    public static final String DELETE_BY_CLOSED = "Task.deleteByClosed";
+    public static final String DELETE_HAVING_TARGET_END_BEFORE = "Task.deleteHavingTargetEndBefore";
+    public static final String DELETE_BY_CLOSED_HAVING_TARGET_END_BEFORE = "Task.deleteByClosedHavingTargetEndBefore";
+    public static final String DELETE_ALL = "Task.deleteAll";
+
+    static final String SELECT_TUPLE = "select t.id as id, t.name as name, t.description as description, " +
+            "t.targetEnd as targetEnd, t.extraInformation as extraInformation, t.closed as closed, " +
+            "t.version as version from Task t";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Task_seq_gen")
-    @SequenceGenerator(name = "Task_seq_gen", sequenceName = "Task_seq", allocationSize = 1)
+    @SequenceGenerator(name = "Task_seq_gen", sequenceName = "Task_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -51,6 +120,10 @@ public class TaskEntity {
     @Column(name = "closed", nullable = false)
     private Boolean closed;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -99,6 +172,14 @@ public class TaskEntity {
         this.closed = closed;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Task toModel() {
         return new Task(
                 Stream.ofNullable(id).mapToLong(i -> i).findFirst(),
@@ -106,7 +187,8 @@ public class TaskEntity {
                 description,
                 Optional.ofNullable(targetEnd),
                 Optional.ofNullable(extraInformation),
-                closed
+                closed,
+                Stream.ofNullable(version).mapToLong(v -> v).findFirst()
         );
     }
 
@@ -118,6 +200,7 @@ public class TaskEntity {
         taskEntity.setTargetEnd(task.targetEndOption().orElse(null));
         taskEntity.setExtraInformation(task.extraInformationOption().orElse(null));
         taskEntity.setClosed(task.closed());
+        task.versionOption().ifPresent(taskEntity::setVersion);
         return taskEntity;
     }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.exception;
+
+/**
+ * Exception thrown when a page token is not the next page token of a previous page, for example because
+ * the client has changed it.
+ *
+ * @author Chris de Vreeze
+ */
+public class InvalidPageTokenException extends IllegalArgumentException {
+
+    public InvalidPageTokenException(String pageToken) {
+        super(String.format("Invalid page token: %s", pageToken));
+    }
+
+    public InvalidPageTokenException(String pageToken, Throwable cause) {
+        super(String.format("Invalid page token: %s", pageToken), cause);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.exception;
+
+/**
+ * Exception thrown when a unit of work (typically an HTTP request) is about to execute more SQL statements than
+ * its statement budget allows, if budget violations are configured to fail.
+ *
+ * @author Chris de Vreeze
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(
+            String description,
+            int maxStatements,
+            String mostExecutedStatement,
+            long mostExecutedStatementCount
+    ) {
+        super(String.format(
+                "%s exceeded its budget of %d SQL statements (possible N+1 select). Executed most often (%d times): %s",
+                description,
+                maxStatements,
+                mostExecutedStatementCount,
+                mostExecutedStatement
+        ));
+    }
+}
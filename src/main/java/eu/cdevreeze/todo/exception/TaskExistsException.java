@@ -28,4 +28,8 @@ public class TaskExistsException extends RuntimeException {
     public TaskExistsException(Task task) {
         super(String.format("Task (with the same ID or name) already exists: %s", task));
     }
+
+    public TaskExistsException(Task task, Throwable cause) {
+        super(String.format("Task (with the same ID or name) already exists: %s", task), cause);
+    }
 }
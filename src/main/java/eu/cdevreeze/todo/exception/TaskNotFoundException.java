@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.exception;
+
+/**
+ * Exception thrown when attempting to update a Task that does not exist (anymore), for example because
+ * it has been deleted in the meantime.
+ *
+ * @author Chris de Vreeze
+ */
+public class TaskNotFoundException extends RuntimeException {
+
+    private final long id;
+
+    public TaskNotFoundException(long id) {
+        super(String.format("Task not found (ID: %d)", id));
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.exception;
+
+import eu.cdevreeze.todo.model.Task;
+
+/**
+ * Exception thrown when attempting to update a Task whose version no longer matches the stored version,
+ * because the task has been updated in the meantime.
+ *
+ * @author Chris de Vreeze
+ */
+public class TaskVersionConflictException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public TaskVersionConflictException(Task task, long currentVersion) {
+        super(String.format("Task has been updated concurrently (current version: %d): %s", currentVersion, task));
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
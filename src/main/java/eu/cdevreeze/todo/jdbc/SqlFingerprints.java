@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization of SQL statements into fingerprints. Statements that only differ in literal values, IN list lengths,
+ * comments, whitespace or case have the same fingerprint. Fingerprints contain no literal values, so they can be
+ * logged without leaking data.
+ *
+ * @author Chris de Vreeze
+ */
+public final class SqlFingerprints {
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LINE_COMMENT = Pattern.compile("--[^\\n]*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlFingerprints() {
+    }
+
+    public static String fingerprint(String sql) {
+        // String literals first, so that "--" in a literal is not mistaken for a comment
+        String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+        result = BLOCK_COMMENT.matcher(result).replaceAll(" ");
+        result = LINE_COMMENT.matcher(result).replaceAll(" ");
+        result = NUMERIC_LITERAL.matcher(result).replaceAll("?");
+        result = IN_LIST.matcher(result).replaceAll("in (...)");
+        result = WHITESPACE.matcher(result).replaceAll(" ");
+        return result.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of executed SQL statements, aggregated per {@link SqlFingerprints fingerprint}: the number of executions,
+ * total and maximum execution time, and the number of rows (read or written). Statements slower than the configured
+ * threshold are logged as warnings, by fingerprint, so without literal values or bind parameter values.
+ * <p>
+ * The number of fingerprints is bounded. Once the maximum has been reached, new fingerprints are counted under
+ * {@link #OTHER_FINGERPRINT}. For queries, the execution time does not include fetching the rows.
+ *
+ * @author Chris de Vreeze
+ */
+@Component
+public class SqlStatementStatistics {
+
+    public static final String OTHER_FINGERPRINT = "(other)";
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementStatistics.class);
+
+    /**
+     * Immutable snapshot of the statistics of one statement fingerprint.
+     */
+    public record StatementStats(
+            String fingerprint,
+            long count,
+            Duration totalTime,
+            Duration maxTime,
+            long rows
+    ) {
+    }
+
+    private static final class Counters {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+    }
+
+    private final Duration slowStatementThreshold;
+    private final int maxFingerprints;
+    private final ConcurrentMap<String, Counters> countersByFingerprint = new ConcurrentHashMap<>();
+    // The same SQL strings are executed over and over again, so their fingerprints are cached
+    private final LoadingCache<String, String> fingerprintsBySql;
+
+    public SqlStatementStatistics(
+            @Value("${todo.sql.slow-statement-threshold:200ms}") Duration slowStatementThreshold,
+            @Value("${todo.sql.max-fingerprints:1000}") int maxFingerprints
+    ) {
+        Preconditions.checkArgument(maxFingerprints > 0, "The maximum number of fingerprints must be positive");
+        this.slowStatementThreshold = slowStatementThreshold;
+        this.maxFingerprints = maxFingerprints;
+        this.fingerprintsBySql = Caffeine.newBuilder()
+                .maximumSize(maxFingerprints)
+                .build(SqlFingerprints::fingerprint);
+    }
+
+    /**
+     * Returns the fingerprint of the given SQL statement.
+     */
+    public String fingerprint(String sql) {
+        return fingerprintsBySql.get(sql);
+    }
+
+    /**
+     * Records one execution of a statement, with the number of rows written by it. For queries, the number of rows
+     * is 0 here, because the rows are only counted while they are fetched (see {@link #recordRows(String, long)}).
+     */
+    public void recordExecution(String fingerprint, long elapsedNanos, long rows) {
+        Counters counters = counters(fingerprint);
+        counters.count.increment();
+        counters.totalNanos.add(elapsedNanos);
+        counters.maxNanos.accumulate(elapsedNanos);
+        if (rows > 0) {
+            counters.rows.add(rows);
+        }
+
+        if (elapsedNanos > slowStatementThreshold.toNanos()) {
+            logger.warn(
+                    "Slow SQL statement ({} ms, bind parameters redacted): {}",
+                    Duration.ofNanos(elapsedNanos).toMillis(),
+                    fingerprint
+            );
+        }
+    }
+
+    /**
+     * Records rows read by a query after its execution, when they are fetched.
+     */
+    public void recordRows(String fingerprint, long rows) {
+        if (rows > 0) {
+            counters(fingerprint).rows.add(rows);
+        }
+    }
+
+    /**
+     * Returns the statistics per fingerprint, ordered by total time, in descending order.
+     */
+    public ImmutableList<StatementStats> getStatistics() {
+        return countersByFingerprint.entrySet().stream()
+                .map(entry -> new StatementStats(
+                        entry.getKey(),
+                        entry.getValue().count.sum(),
+                        Duration.ofNanos(entry.getValue().totalNanos.sum()),
+                        Duration.ofNanos(entry.getValue().maxNanos.get()),
+                        entry.getValue().rows.sum()
+                ))
+                .sorted(Comparator.comparing(StatementStats::totalTime).reversed())
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public void reset() {
+        countersByFingerprint.clear();
+    }
+
+    private Counters counters(String fingerprint) {
+        Counters counters = countersByFingerprint.get(fingerprint);
+        if (counters != null) {
+            return counters;
+        }
+        String key = countersByFingerprint.size() < maxFingerprints ? fingerprint : OTHER_FINGERPRINT;
+        return countersByFingerprint.computeIfAbsent(key, k -> new Counters());
+    }
+}
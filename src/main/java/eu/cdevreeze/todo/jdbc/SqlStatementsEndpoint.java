@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import eu.cdevreeze.todo.jdbc.SqlStatementStatistics.StatementStats;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint (/actuator/sqlstatements) returning the {@link SqlStatementStatistics} per statement fingerprint,
+ * ordered by total execution time (most expensive first). A DELETE request resets the statistics.
+ *
+ * @author Chris de Vreeze
+ */
+@Component
+@Endpoint(id = "sqlstatements")
+public class SqlStatementsEndpoint {
+
+    private final SqlStatementStatistics statistics;
+
+    public SqlStatementsEndpoint(SqlStatementStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public List<StatementStats> statementStatistics() {
+        return statistics.getStatistics();
+    }
+
+    @DeleteOperation
+    public void resetStatementStatistics() {
+        statistics.reset();
+    }
+}
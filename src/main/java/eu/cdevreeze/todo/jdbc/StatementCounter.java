@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.todo.exception.StatementBudgetExceededException;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter of the SQL statements executed on behalf of one unit of work (typically one HTTP request), checking them
+ * against a statement budget. The {@link StatementInspectingDataSource} counts each statement in the counter bound
+ * to the current thread, if any. Work handed over to other threads (such as the execution lanes) must be wrapped
+ * with {@link #propagating(Runnable)}, so that its statements are counted as well.
+ * <p>
+ * Exceeding the budget typically points at an "N+1 select" problem: a query per item of an earlier query result, such
+ * as lazily loading the address of each appointment. Therefore, the statement executed most often is reported along
+ * with the violation. Depending on the configuration, the violation is logged as a warning (once per counter), or
+ * the statement exceeding the budget fails with a {@link StatementBudgetExceededException}, as is done in tests.
+ *
+ * @author Chris de Vreeze
+ */
+public final class StatementCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCounter.class);
+
+    private static final ThreadLocal<@Nullable StatementCounter> currentCounter = new ThreadLocal<>();
+
+    private final String description;
+    private final int maxStatements;
+    private final boolean failOnExceeded;
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final ConcurrentMap<String, LongAdder> countsByFingerprint = new ConcurrentHashMap<>();
+    private final AtomicBoolean exceededReported = new AtomicBoolean(false);
+
+    public StatementCounter(String description, int maxStatements, boolean failOnExceeded) {
+        Preconditions.checkArgument(maxStatements >= 0, "The statement budget must not be negative");
+        this.description = description;
+        this.maxStatements = maxStatements;
+        this.failOnExceeded = failOnExceeded;
+    }
+
+    /**
+     * Returns the counter bound to the current thread, if any.
+     */
+    public static Optional<StatementCounter> current() {
+        return Optional.ofNullable(currentCounter.get());
+    }
+
+    /**
+     * Binds the given counter to the current thread, or unbinds the current counter if the parameter is null.
+     */
+    public static void bind(@Nullable StatementCounter counter) {
+        if (counter == null) {
+            currentCounter.remove();
+        } else {
+            currentCounter.set(counter);
+        }
+    }
+
+    /**
+     * Returns a Runnable that runs the given task with the counter bound to the calling thread (if any) bound to
+     * the thread running the task. Fit for use as Spring TaskDecorator.
+     */
+    public static Runnable propagating(Runnable task) {
+        StatementCounter counter = currentCounter.get();
+        if (counter == null) {
+            return task;
+        }
+        return () -> {
+            StatementCounter previousCounter = currentCounter.get();
+            bind(counter);
+            try {
+                task.run();
+            } finally {
+                bind(previousCounter);
+            }
+        };
+    }
+
+    /**
+     * Counts one statement (about to be executed), throwing a {@link StatementBudgetExceededException} if it
+     * exceeds the budget and the counter is configured to fail in that case.
+     */
+    public void recordStatement(String fingerprint) {
+        countsByFingerprint.computeIfAbsent(fingerprint, k -> new LongAdder()).increment();
+        int count = statementCount.incrementAndGet();
+
+        if (count > maxStatements) {
+            Map.Entry<String, Long> mostExecuted = mostExecutedStatement();
+            if (failOnExceeded) {
+                throw new StatementBudgetExceededException(
+                        description, maxStatements, mostExecuted.getKey(), mostExecuted.getValue());
+            }
+            if (exceededReported.compareAndSet(false, true)) {
+                logger.warn(
+                        "{} exceeded its budget of {} SQL statements (possible N+1 select). Executed most often ({} times): {}",
+                        description,
+                        maxStatements,
+                        mostExecuted.getValue(),
+                        mostExecuted.getKey()
+                );
+            }
+        }
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public int getStatementCount() {
+        return statementCount.get();
+    }
+
+    public boolean isBudgetExceeded() {
+        return getStatementCount() > maxStatements;
+    }
+
+    /**
+     * Returns the number of executions per statement fingerprint.
+     */
+    public ImmutableMap<String, Long> getStatementCounts() {
+        return countsByFingerprint.entrySet().stream()
+                .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+    }
+
+    private Map.Entry<String, Long> mostExecutedStatement() {
+        return getStatementCounts().entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * DataSource wrapping the connections of the target DataSource (typically the connection pool), so that each
+ * execution of a statement on them is recorded in the {@link SqlStatementStatistics}. Rows of query results are
+ * counted as they are fetched, and recorded when the ResultSet is closed. Each statement is also counted in the
+ * {@link StatementCounter} bound to the current thread, if any, before it is executed.
+ * <p>
+ * The wrappers are JDK dynamic proxies of the JDBC interfaces, delegating all calls (including "unwrap")
+ * to the wrapped JDBC objects.
+ *
+ * @author Chris de Vreeze
+ */
+public class StatementInspectingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"
+    );
+
+    private static final String UNKNOWN_BATCH_SQL = "(batch)";
+
+    private final SqlStatementStatistics statistics;
+
+    public StatementInspectingDataSource(DataSource targetDataSource, SqlStatementStatistics statistics) {
+        super(targetDataSource);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return wrap(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> wrapStatement(Statement.class, (Statement) result, null);
+                case "prepareStatement" ->
+                        wrapStatement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall" -> wrapStatement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                default -> result;
+            };
+        });
+    }
+
+    private <S extends Statement> S wrapStatement(Class<S> statementInterface, S statement, @Nullable String preparedSql) {
+        return wrap(statementInterface, new StatementHandler(statement, preparedSql));
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final @Nullable String preparedSql;
+        private @Nullable String lastBatchSql;
+        private @Nullable String lastFingerprint;
+
+        private StatementHandler(Statement statement, @Nullable String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public @Nullable Object invoke(Object proxy, Method method, @Nullable Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("addBatch") && args != null && args.length == 1 && args[0] instanceof String sql) {
+                lastBatchSql = sql;
+            }
+            if (EXECUTE_METHODS.contains(methodName)) {
+                return execute(method, args);
+            }
+
+            Object result = StatementInspectingDataSource.invoke(statement, method, args);
+            if (methodName.equals("getResultSet") && result instanceof ResultSet resultSet && lastFingerprint != null) {
+                return wrapResultSet(resultSet, lastFingerprint);
+            }
+            return result;
+        }
+
+        private @Nullable Object execute(Method method, @Nullable Object[] args) throws Throwable {
+            String sql;
+            if (args != null && args.length > 0 && args[0] instanceof String executedSql) {
+                sql = executedSql;
+            } else if (preparedSql != null) {
+                sql = preparedSql;
+            } else {
+                sql = lastBatchSql != null ? lastBatchSql : UNKNOWN_BATCH_SQL;
+            }
+            String fingerprint = statistics.fingerprint(sql);
+            lastFingerprint = fingerprint;
+            StatementCounter.current().ifPresent(counter -> counter.recordStatement(fingerprint));
+
+            long start = System.nanoTime();
+            Object result = StatementInspectingDataSource.invoke(statement, method, args);
+            long elapsedNanos = System.nanoTime() - start;
+
+            statistics.recordExecution(fingerprint, elapsedNanos, writtenRows(result));
+
+            if (result instanceof ResultSet resultSet) {
+                return wrapResultSet(resultSet, fingerprint);
+            }
+            return result;
+        }
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, String fingerprint) {
+        long[] rowCount = new long[1];
+        boolean[] recorded = new boolean[1];
+        return wrap(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rowCount[0] += 1;
+            } else if (method.getName().equals("close") && !recorded[0]) {
+                recorded[0] = true;
+                statistics.recordRows(fingerprint, rowCount[0]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns the number of written rows from the result of an update or batch. Batch counts of
+     * {@link Statement#SUCCESS_NO_INFO} (such as returned for batches rewritten into multi-row inserts) count as 1.
+     */
+    private static long writtenRows(@Nullable Object executeResult) {
+        return switch (executeResult) {
+            case Integer count -> Math.max(count, 0);
+            case Long count -> Math.max(count, 0);
+            case int[] counts -> Arrays.stream(counts).mapToLong(StatementInspectingDataSource::batchRows).sum();
+            case long[] counts -> Arrays.stream(counts).map(StatementInspectingDataSource::batchRows).sum();
+            case null, default -> 0;
+        };
+    }
+
+    private static long batchRows(long batchCount) {
+        return batchCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(batchCount, 0);
+    }
+
+    private static <T> T wrap(Class<T> jdbcInterface, InvocationHandler handler) {
+        // Proxies are only equal to themselves, like the JDBC objects they wrap
+        InvocationHandler identityAwareHandler = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> args != null && args.length == 1 ? proxy == args[0] : handler.invoke(proxy, method, args);
+            case "hashCode" -> args == null || args.length == 0 ? System.identityHashCode(proxy) : handler.invoke(proxy, method, args);
+            default -> handler.invoke(proxy, method, args);
+        };
+        return jdbcInterface.cast(
+                Proxy.newProxyInstance(
+                        StatementInspectingDataSource.class.getClassLoader(),
+                        new Class<?>[]{jdbcInterface},
+                        identityAwareHandler
+                )
+        );
+    }
+
+    private static @Nullable Object invoke(Object target, Method method, @Nullable Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource in a {@link StatementInspectingDataSource}, after it has been configured, so that all users
+ * of the DataSource (Hibernate, Flyway, JDBC templates) are inspected. It can be switched off with property
+ * "todo.sql.inspection-enabled".
+ *
+ * @author Chris de Vreeze
+ */
+@Component
+@ConditionalOnProperty(name = "todo.sql.inspection-enabled", havingValue = "true", matchIfMissing = true)
+public class StatementInspectionPostProcessor implements BeanPostProcessor {
+
+    // Looked up lazily, so this post-processor does not cause early initialization of other beans
+    private final ObjectProvider<SqlStatementStatistics> statistics;
+
+    public StatementInspectionPostProcessor(ObjectProvider<SqlStatementStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof StatementInspectingDataSource)) {
+            return new StatementInspectingDataSource(dataSource, statistics.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.metrics;
+
+import eu.cdevreeze.todo.model.Page;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Aspect timing each call of a TaskService, AddressService, AppointmentService or SearchService method, and recording
+ * the number of rows returned by it. The metrics are tagged with the implementation class (so the CachingTaskService
+ * and the DefaultTaskService it delegates to can be told apart), the method and the exception, if any.
+ * <p>
+ * The number of rows is the size of the returned collection or page, 0 or 1 for an Optional, the returned count
+ * for bulk deletes, and the number of rows passed to the consumer for the "forEach" methods. For other methods,
+ * no number of rows is recorded. Percentile histograms are configured in the application properties.
+ * <p>
+ * The aspect is ordered before the transaction advice, so the timings include committing the transaction.
+ *
+ * @author Chris de Vreeze
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    public static final String CALLS_METRIC = "todo.service.calls";
+    public static final String ROWS_METRIC = "todo.service.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* eu.cdevreeze.todo.service.TaskService.*(..)) || " +
+            "execution(* eu.cdevreeze.todo.service.AddressService.*(..)) || " +
+            "execution(* eu.cdevreeze.todo.service.AppointmentService.*(..)) || " +
+            "execution(* eu.cdevreeze.todo.service.SearchService.*(..))")
+    public @Nullable Object timeServiceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "class", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName(),
+                "method", joinPoint.getSignature().getName()
+        );
+
+        // Counting the rows passed to a consumer, if any
+        Object[] args = joinPoint.getArgs();
+        AtomicLong consumedRowCount = new AtomicLong();
+        boolean hasConsumer = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Consumer<?> consumer) {
+                args[i] = countingConsumer(consumer, consumedRowCount);
+                hasConsumer = true;
+            }
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed(args);
+
+            OptionalLong rowCount = hasConsumer ? OptionalLong.of(consumedRowCount.get()) : rowCount(result);
+            rowCount.ifPresent(count ->
+                    DistributionSummary.builder(ROWS_METRIC)
+                            .description("Number of rows returned by a service method")
+                            .baseUnit("rows")
+                            .tags(tags)
+                            .register(meterRegistry)
+                            .record(count)
+            );
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(
+                    Timer.builder(CALLS_METRIC)
+                            .description("Duration of service method calls")
+                            .tags(tags)
+                            .tag("exception", exception)
+                            .register(meterRegistry)
+            );
+        }
+    }
+
+    private static OptionalLong rowCount(@Nullable Object result) {
+        return switch (result) {
+            case Collection<?> collection -> OptionalLong.of(collection.size());
+            case Page<?> page -> OptionalLong.of(page.items().size());
+            case Optional<?> optional -> OptionalLong.of(optional.isPresent() ? 1 : 0);
+            case Long count -> OptionalLong.of(count);
+            case null, default -> OptionalLong.empty();
+        };
+    }
+
+    private static <T> Consumer<T> countingConsumer(Consumer<T> consumer, AtomicLong count) {
+        return item -> {
+            consumer.accept(item);
+            count.incrementAndGet();
+        };
+    }
+}
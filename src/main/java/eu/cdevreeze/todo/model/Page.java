@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Optional;
+
+/**
+ * Immutable page of query results. If there are more results after this page, the next page token
+ * can be used to query for the next page. That token is opaque to callers.
+ *
+ * @author Chris de Vreeze
+ */
+public record Page<T>(
+        ImmutableList<T> items,
+        Optional<String> nextPageTokenOption
+) {
+
+    public boolean hasNextPage() {
+        return nextPageTokenOption.isPresent();
+    }
+}
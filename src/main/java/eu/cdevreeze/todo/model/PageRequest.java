@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Optional;
+
+/**
+ * Immutable request for a page of query results. Without page token, the first page is requested.
+ * Otherwise, the page token must be the next page token of the previous {@link Page}.
+ *
+ * @author Chris de Vreeze
+ */
+public record PageRequest(
+        Optional<String> pageTokenOption,
+        int pageSize
+) {
+
+    public PageRequest {
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+    }
+
+    public static PageRequest firstPage(int pageSize) {
+        return new PageRequest(Optional.empty(), pageSize);
+    }
+
+    public static PageRequest nextPage(String pageToken, int pageSize) {
+        return new PageRequest(Optional.of(pageToken), pageSize);
+    }
+}
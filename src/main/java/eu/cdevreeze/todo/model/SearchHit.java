@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.model;
+
+/**
+ * Immutable full-text search hit, being a task, appointment or address. The summary is a short text
+ * shown below the name, such as the task description or the city of the address. The higher the rank,
+ * the better the hit matches the search query.
+ *
+ * @author Chris de Vreeze
+ */
+public record SearchHit(
+        Kind kind,
+        long id,
+        String name,
+        String summary,
+        double rank
+) {
+
+    public enum Kind {TASK, APPOINTMENT, ADDRESS}
+}
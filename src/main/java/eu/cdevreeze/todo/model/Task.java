@@ -22,6 +22,9 @@ import java.util.OptionalLong;
 
 /**
  * Immutable task record.
+ * <p>
+ * The version is the optimistic locking version of a stored task. It is empty for tasks that have not been
+ * stored yet. Updates of a task must pass the version that has been read, so that concurrent updates are detected.
  *
  * @author Chris de Vreeze
  */
@@ -31,13 +34,38 @@ public record Task(
         String description,
         Optional<Instant> targetEndOption,
         Optional<String> extraInformationOption,
-        boolean closed
+        boolean closed,
+        OptionalLong versionOption
 ) {
 
     public Task withoutId() {
         return newTask(name(), description(), targetEndOption(), extraInformationOption(), closed());
     }
 
+    public Task withId(long id) {
+        return new Task(
+                OptionalLong.of(id),
+                name(),
+                description(),
+                targetEndOption(),
+                extraInformationOption(),
+                closed(),
+                versionOption()
+        );
+    }
+
+    public Task withVersion(long version) {
+        return new Task(
+                idOption(),
+                name(),
+                description(),
+                targetEndOption(),
+                extraInformationOption(),
+                closed(),
+                OptionalLong.of(version)
+        );
+    }
+
     public static Task newTask(
             String name,
             String description,
@@ -45,6 +73,6 @@ public record Task(
             Optional<String> extraInformationOption,
             boolean closed
     ) {
-        return new Task(OptionalLong.empty(), name, description, targetEndOption, extraInformationOption, closed);
+        return new Task(OptionalLong.empty(), name, description, targetEndOption, extraInformationOption, closed, OptionalLong.empty());
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.model;
+
+/**
+ * Immutable result of adding one task in a batch of tasks. If the task has been added, the task
+ * is the added task, including its ID. Otherwise, the task is the task as submitted.
+ *
+ * @author Chris de Vreeze
+ */
+public record TaskAdditionResult(
+        Task task,
+        Status status
+) {
+
+    public enum Status {
+        ADDED,
+        /**
+         * Not added, because a task with the same name already exists in the database.
+         */
+        NAME_EXISTS,
+        /**
+         * Not added, because an earlier task in the same batch has the same name.
+         */
+        DUPLICATE_NAME_IN_BATCH
+    }
+}
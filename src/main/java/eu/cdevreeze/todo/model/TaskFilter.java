@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.model;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Immutable filter on tasks, such as "closed tasks having a target end before some moment". All given criteria
+ * must hold. At least one criterion must be given, so a filter never matches all tasks by accident.
+ *
+ * @author Chris de Vreeze
+ */
+public record TaskFilter(
+        Optional<Boolean> closedOption,
+        Optional<Instant> targetEndBeforeOption
+) {
+
+    public TaskFilter {
+        Preconditions.checkArgument(
+                closedOption.isPresent() || targetEndBeforeOption.isPresent(),
+                "At least one filter criterion must be given"
+        );
+    }
+}
@@ -19,6 +19,8 @@ package eu.cdevreeze.todo.service;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.todo.model.Address;
 
+import java.util.function.Consumer;
+
 /**
  * API contract of a service for querying and managing addresses.
  *
@@ -28,6 +30,12 @@ public interface AddressService {
 
     ImmutableList<Address> findAllAddresses();
 
+    /**
+     * Passes all addresses, ordered by ID, one at a time to the given consumer, without holding
+     * all of them in memory. This is meant for exporting the complete data set.
+     */
+    void forEachAddress(Consumer<? super Address> addressConsumer);
+
     Address addAddress(Address address);
 
     void deleteAllAddresses();
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.todo.model.Appointment;
 
 import java.time.Instant;
+import java.util.function.Consumer;
 
 /**
  * API contract of a service for querying and managing appointments of the logged-in user.
@@ -30,8 +31,23 @@ public interface AppointmentService {
 
     ImmutableList<Appointment> findAllAppointments();
 
+    /**
+     * Passes all appointments, ordered by ID, one at a time to the given consumer, without holding
+     * all of them in memory. This is meant for exporting the complete data set.
+     */
+    void forEachAppointment(Consumer<? super Appointment> appointmentConsumer);
+
+    /**
+     * Returns the appointments starting at or after the given start, and ending before the given end.
+     */
     ImmutableList<Appointment> findAppointmentsBetween(Instant start, Instant end);
 
+    /**
+     * Returns the appointments overlapping the given time range, that is, starting before the given end,
+     * and ending after the given start.
+     */
+    ImmutableList<Appointment> findAppointmentsOverlapping(Instant start, Instant end);
+
     ImmutableList<Appointment> findAppointmentsEndingAfter(Instant end);
 
     ImmutableList<Appointment> findAppointmentsEndingBefore(Instant end);
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service;
+
+/**
+ * API contract of a service keeping track of a cheap version per data set (that is, per table), without querying
+ * the database. Data versions are used for conditional requests (ETags), so clients polling for unchanged data
+ * cost almost nothing.
+ * <p>
+ * The versions are only changed by writes through the services of this application instance. So they can only be
+ * relied on if all writes go through one application instance.
+ *
+ * @author Chris de Vreeze
+ */
+public interface DataVersionService {
+
+    enum DataSet {TASKS, ADDRESSES, APPOINTMENTS}
+
+    /**
+     * Returns the current version of the data set, as an opaque string. It is unique across application restarts.
+     */
+    String getVersion(DataSet dataSet);
+
+    /**
+     * Registers a change to the data set. Inside a transaction, the version changes after the transaction has
+     * completed, so a version never belongs to data that has not been committed yet.
+     */
+    void registerChange(DataSet dataSet);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.SearchHit;
+
+/**
+ * API contract of a service for full-text search across tasks, appointments and addresses.
+ *
+ * @author Chris de Vreeze
+ */
+public interface SearchService {
+
+    /**
+     * Returns at most "limit" search hits for the given query, best hits first. The query is free text,
+     * as typed in a search box: words, "quoted phrases", "or", and "-" to exclude words. A blank query
+     * has no hits.
+     */
+    ImmutableList<SearchHit> search(String query, int limit);
+}
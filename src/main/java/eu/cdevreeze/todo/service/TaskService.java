@@ -17,10 +17,17 @@
 package eu.cdevreeze.todo.service;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
 import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * API contract of a service for querying and managing tasks of the logged-in user.
@@ -35,6 +42,28 @@ public interface TaskService {
 
     ImmutableList<Task> findAllClosedTasks();
 
+    /**
+     * Returns the requested page of tasks, ordered by ID. The cost of this query depends on the
+     * page size, and not on the total number of tasks.
+     */
+    Page<Task> findTasks(PageRequest pageRequest);
+
+    /**
+     * Returns the requested page of open tasks, ordered by ID.
+     */
+    Page<Task> findOpenTasks(PageRequest pageRequest);
+
+    /**
+     * Returns the requested page of closed tasks, ordered by ID.
+     */
+    Page<Task> findClosedTasks(PageRequest pageRequest);
+
+    /**
+     * Passes all tasks, ordered by ID, one at a time to the given consumer, without holding
+     * all of them in memory. This is meant for exporting the complete data set.
+     */
+    void forEachTask(Consumer<? super Task> taskConsumer);
+
     ImmutableList<Task> findTasksHavingTargetEndAfter(Instant end);
 
     ImmutableList<Task> findTasksHavingTargetEndBefore(Instant end);
@@ -43,14 +72,49 @@ public interface TaskService {
 
     Optional<Task> findTaskByName(String name);
 
+    /**
+     * Adds the task, throwing a {@link eu.cdevreeze.todo.exception.TaskExistsException} if a task with
+     * the same name already exists. The unique constraint on the task name is used for that check.
+     */
     Task addTask(Task task);
 
     /**
-     * Updates a task. The task must already have an ID. Neither ID nor name can be updated.
+     * Adds a batch of tasks in one transaction, returning one result per task, in the same order.
+     * Tasks whose names already exist, or occur earlier in the same batch, are skipped.
+     */
+    ImmutableList<TaskAdditionResult> addTasks(Collection<Task> tasks);
+
+    /**
+     * Updates a task, returning the updated task with its new version. The task must already have an ID and
+     * a version. Neither ID nor name can be updated. If the task has been updated in the meantime, so its stored
+     * version no longer matches, a {@link eu.cdevreeze.todo.exception.TaskVersionConflictException} is thrown.
+     * If the task does not exist (anymore), a {@link eu.cdevreeze.todo.exception.TaskNotFoundException} is thrown.
      */
     Task updateTask(Task task);
 
-    void deleteTask(long id);
+    /**
+     * Updates a task whatever its stored version, returning the updated task with its new version. The task must
+     * already have an ID, and its version (if any) is ignored. Neither ID nor name can be updated. If the task
+     * does not exist (anymore), a {@link eu.cdevreeze.todo.exception.TaskNotFoundException} is thrown.
+     */
+    Task updateTaskUnconditionally(Task task);
+
+    /**
+     * Deletes the task with the given ID, returning the name of the deleted task, or an empty Optional if the
+     * task does not exist.
+     */
+    Optional<String> deleteTask(long id);
+
+    /**
+     * Deletes the tasks with the given IDs, returning the names of the deleted tasks. Unknown IDs are ignored.
+     * The tasks are deleted with set-based delete statements, each one deleting many tasks.
+     */
+    ImmutableSet<String> deleteTasks(Collection<Long> ids);
+
+    /**
+     * Deletes all tasks matching the given filter in one delete statement, returning the number of deleted tasks.
+     */
+    long deleteTasksMatching(TaskFilter filter);
 
     void deleteAllTasks();
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Appointment;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Immutable in-memory index of appointments, as time intervals from start to end, for answering time range
+ * queries without touching the database.
+ * <p>
+ * Appointments are held in 2 sorted arrays. One is sorted on end, so appointments ending before or after some
+ * moment are a contiguous slice, found in O(log n + k) time, for k results. The other one is sorted on start,
+ * and it is augmented with a segment tree holding the minimum and maximum end per subrange. Containment and
+ * overlap queries first find the slice of candidates by binary search on the start, and then descend the segment
+ * tree only into subranges that contain at least one result. That costs O(log n + k log(n/k)) time at most,
+ * and close to O(log n + k) for the short appointments of a calendar.
+ * <p>
+ * Adding an appointment creates a new index, in O(n) time.
+ *
+ * @author Chris de Vreeze
+ */
+final class AppointmentIntervalIndex {
+
+    private static final Comparator<Appointment> byStartComparator =
+            Comparator.comparing(Appointment::start).thenComparing(Appointment::end);
+
+    private static final Comparator<Appointment> byEndComparator =
+            Comparator.comparing(Appointment::end).thenComparing(Appointment::start);
+
+    private final Appointment[] appointmentsByStart;
+    private final Appointment[] appointmentsByEnd;
+
+    // Segment trees over appointmentsByStart, with the root at index 1, and the leaves starting at index leafOffset
+    private final int leafOffset;
+    private final @Nullable Instant[] minEnds;
+    private final @Nullable Instant[] maxEnds;
+
+    private AppointmentIntervalIndex(Appointment[] appointmentsByStart, Appointment[] appointmentsByEnd) {
+        this.appointmentsByStart = appointmentsByStart;
+        this.appointmentsByEnd = appointmentsByEnd;
+
+        int n = appointmentsByStart.length;
+        this.leafOffset = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+        this.minEnds = new Instant[2 * leafOffset];
+        this.maxEnds = new Instant[2 * leafOffset];
+        for (int i = 0; i < n; i++) {
+            minEnds[leafOffset + i] = appointmentsByStart[i].end();
+            maxEnds[leafOffset + i] = appointmentsByStart[i].end();
+        }
+        for (int node = leafOffset - 1; node >= 1; node--) {
+            minEnds[node] = min(minEnds[2 * node], minEnds[2 * node + 1]);
+            maxEnds[node] = max(maxEnds[2 * node], maxEnds[2 * node + 1]);
+        }
+    }
+
+    static AppointmentIntervalIndex empty() {
+        return new AppointmentIntervalIndex(new Appointment[0], new Appointment[0]);
+    }
+
+    static AppointmentIntervalIndex of(Collection<Appointment> appointments) {
+        Appointment[] appointmentsByStart = appointments.toArray(Appointment[]::new);
+        Arrays.sort(appointmentsByStart, byStartComparator);
+        Appointment[] appointmentsByEnd = appointments.toArray(Appointment[]::new);
+        Arrays.sort(appointmentsByEnd, byEndComparator);
+        return new AppointmentIntervalIndex(appointmentsByStart, appointmentsByEnd);
+    }
+
+    int size() {
+        return appointmentsByStart.length;
+    }
+
+    AppointmentIntervalIndex plus(Appointment appointment) {
+        return new AppointmentIntervalIndex(
+                insert(appointmentsByStart, appointment, byStartComparator),
+                insert(appointmentsByEnd, appointment, byEndComparator)
+        );
+    }
+
+    /**
+     * Returns the appointments starting at or after the given start, and ending before the given end,
+     * ordered by start.
+     */
+    ImmutableList<Appointment> findAppointmentsBetween(Instant start, Instant end) {
+        // If the appointment ends before the given end, it also starts before it
+        int from = firstIndexNotBefore(appointmentsByStart, Appointment::start, start, false);
+        int to = firstIndexNotBefore(appointmentsByStart, Appointment::start, end, false);
+
+        ImmutableList.Builder<Appointment> result = ImmutableList.builder();
+        collectEndingBefore(1, 0, leafOffset, from, to, end, result);
+        return result.build();
+    }
+
+    /**
+     * Returns the appointments starting before the given end, and ending after the given start,
+     * ordered by start.
+     */
+    ImmutableList<Appointment> findAppointmentsOverlapping(Instant start, Instant end) {
+        int to = firstIndexNotBefore(appointmentsByStart, Appointment::start, end, false);
+
+        ImmutableList.Builder<Appointment> result = ImmutableList.builder();
+        collectEndingAfter(1, 0, leafOffset, 0, to, start, result);
+        return result.build();
+    }
+
+    /**
+     * Returns the appointments ending after the given end, ordered by end.
+     */
+    ImmutableList<Appointment> findAppointmentsEndingAfter(Instant end) {
+        int from = firstIndexNotBefore(appointmentsByEnd, Appointment::end, end, true);
+        return ImmutableList.copyOf(Arrays.asList(appointmentsByEnd).subList(from, appointmentsByEnd.length));
+    }
+
+    /**
+     * Returns the appointments ending before the given end, ordered by end.
+     */
+    ImmutableList<Appointment> findAppointmentsEndingBefore(Instant end) {
+        int to = firstIndexNotBefore(appointmentsByEnd, Appointment::end, end, false);
+        return ImmutableList.copyOf(Arrays.asList(appointmentsByEnd).subList(0, to));
+    }
+
+    private void collectEndingBefore(
+            int node,
+            int nodeFrom,
+            int nodeTo,
+            int from,
+            int to,
+            Instant end,
+            ImmutableList.Builder<Appointment> result
+    ) {
+        if (nodeTo <= from || nodeFrom >= to || minEnds[node] == null || !minEnds[node].isBefore(end)) {
+            return;
+        }
+        if (node >= leafOffset) {
+            result.add(appointmentsByStart[nodeFrom]);
+            return;
+        }
+        int nodeMid = (nodeFrom + nodeTo) >>> 1;
+        collectEndingBefore(2 * node, nodeFrom, nodeMid, from, to, end, result);
+        collectEndingBefore(2 * node + 1, nodeMid, nodeTo, from, to, end, result);
+    }
+
+    private void collectEndingAfter(
+            int node,
+            int nodeFrom,
+            int nodeTo,
+            int from,
+            int to,
+            Instant start,
+            ImmutableList.Builder<Appointment> result
+    ) {
+        if (nodeTo <= from || nodeFrom >= to || maxEnds[node] == null || !maxEnds[node].isAfter(start)) {
+            return;
+        }
+        if (node >= leafOffset) {
+            result.add(appointmentsByStart[nodeFrom]);
+            return;
+        }
+        int nodeMid = (nodeFrom + nodeTo) >>> 1;
+        collectEndingAfter(2 * node, nodeFrom, nodeMid, from, to, start, result);
+        collectEndingAfter(2 * node + 1, nodeMid, nodeTo, from, to, start, result);
+    }
+
+    /**
+     * Binary search in an array sorted on the given key, returning the index of the first appointment whose key
+     * is not before (or, if strict, after) the given moment.
+     */
+    private static int firstIndexNotBefore(
+            Appointment[] sortedAppointments,
+            Function<Appointment, Instant> getKey,
+            Instant moment,
+            boolean strict
+    ) {
+        int low = 0;
+        int high = sortedAppointments.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Instant key = getKey.apply(sortedAppointments[mid]);
+            boolean isLeft = strict ? !key.isAfter(moment) : key.isBefore(moment);
+            if (isLeft) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Appointment[] insert(Appointment[] sortedAppointments, Appointment appointment, Comparator<Appointment> comparator) {
+        int searchResult = Arrays.binarySearch(sortedAppointments, appointment, comparator);
+        int index = (searchResult >= 0) ? searchResult : -searchResult - 1;
+
+        Appointment[] result = new Appointment[sortedAppointments.length + 1];
+        System.arraycopy(sortedAppointments, 0, result, 0, index);
+        result[index] = appointment;
+        System.arraycopy(sortedAppointments, index, result, index + 1, sortedAppointments.length - index);
+        return result;
+    }
+
+    private static @Nullable Instant min(@Nullable Instant instant1, @Nullable Instant instant2) {
+        if (instant1 == null) {
+            return instant2;
+        } else if (instant2 == null) {
+            return instant1;
+        } else {
+            return instant1.isBefore(instant2) ? instant1 : instant2;
+        }
+    }
+
+    private static @Nullable Instant max(@Nullable Instant instant1, @Nullable Instant instant2) {
+        if (instant1 == null) {
+            return instant2;
+        } else if (instant2 == null) {
+            return instant1;
+        } else {
+            return instant1.isAfter(instant2) ? instant1 : instant2;
+        }
+    }
+}
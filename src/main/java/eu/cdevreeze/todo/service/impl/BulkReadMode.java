@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+/**
+ * How bulk queries (returning or streaming potentially large result sets) are run by the service implementations.
+ * It is configured with property "todo.bulk-read-mode".
+ *
+ * @author Chris de Vreeze
+ */
+public enum BulkReadMode {
+
+    /**
+     * Through the transactional EntityManager, like any other query.
+     */
+    ENTITY_MANAGER,
+
+    /**
+     * Through a Hibernate StatelessSession on the same JDBC connection (so in the same transaction), which has
+     * no persistence context at all, and therefore does no bookkeeping, flushing or dirty checking.
+     */
+    STATELESS_SESSION
+}
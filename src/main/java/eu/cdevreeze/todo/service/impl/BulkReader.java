@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.Query;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Runner of bulk named tuple queries, in the configured {@link BulkReadMode}. Rows are fetched from the database with a
+ * bounded fetch size, so inside a transaction the PostgreSQL JDBC driver reads them through a cursor, instead of
+ * reading the complete result set into memory first.
+ * <p>
+ * This class must be used inside a transaction, because the stateless session uses the JDBC connection of the
+ * transactional EntityManager.
+ *
+ * @author Chris de Vreeze
+ */
+final class BulkReader {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+    private final BulkReadMode bulkReadMode;
+
+    BulkReader(EntityManager entityManager, BulkReadMode bulkReadMode) {
+        this.entityManager = entityManager;
+        this.bulkReadMode = bulkReadMode;
+    }
+
+    /**
+     * Runs the named query with the given parameters, returning the mapped rows.
+     */
+    <T> ImmutableList<T> list(String queryName, Map<String, ?> parameters, Function<Tuple, T> mapper) {
+        return withTupleStream(
+                queryName,
+                parameters,
+                tuples -> tuples.map(mapper).collect(ImmutableList.toImmutableList())
+        );
+    }
+
+    /**
+     * Runs the named query with the given parameters, passing the rows one at a time to the given consumer,
+     * in constant memory.
+     */
+    void forEach(String queryName, Map<String, ?> parameters, Consumer<Tuple> consumer) {
+        withTupleStream(queryName, parameters, tuples -> {
+            tuples.forEach(consumer);
+            return null;
+        });
+    }
+
+    private <T extends @Nullable Object> T withTupleStream(
+            String queryName,
+            Map<String, ?> parameters,
+            Function<Stream<Tuple>, T> f
+    ) {
+        return switch (bulkReadMode) {
+            case ENTITY_MANAGER -> {
+                TypedQuery<Tuple> query = entityManager.createNamedQuery(queryName, Tuple.class);
+                parameters.forEach(query::setParameter);
+                try (Stream<Tuple> tuples = query
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                        .getResultStream()) {
+                    yield f.apply(tuples);
+                }
+            }
+            case STATELESS_SESSION -> {
+                Session session = entityManager.unwrap(Session.class);
+                yield session.doReturningWork(connection -> {
+                    // The connection is provided by the session, and therefore not closed by the stateless session
+                    try (StatelessSession statelessSession = session.getSessionFactory()
+                            .withStatelessOptions()
+                            .connection(connection)
+                            .openStatelessSession()) {
+                        Query<Tuple> query = statelessSession.createNamedQuery(queryName, Tuple.class);
+                        parameters.forEach(query::setParameter);
+                        try (Stream<Tuple> tuples = query.setFetchSize(FETCH_SIZE).getResultStream()) {
+                            return f.apply(tuples);
+                        }
+                    }
+                });
+            }
+        };
+    }
+}
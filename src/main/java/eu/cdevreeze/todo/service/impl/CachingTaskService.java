@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
+import eu.cdevreeze.todo.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * TaskService decorating the DefaultTaskService with a read-through cache for single-task lookups,
+ * by ID and by name. The cache is bounded in size, and entries expire some time after having been loaded.
+ * <p>
+ * Write operations invalidate the affected entries after the delegate has committed. Loading an entry blocks
+ * invalidation of that same entry until loading is done, so a stale value loaded concurrently with a write
+ * is removed by that write. That is why deletions by ID get the names of the deleted tasks from the delegate,
+ * for invalidating the name cache per key. Bulk deletes by filter clear both caches, which does not wait for
+ * loads in progress. Hit, miss and eviction statistics are published as "cache.*" metrics.
+ *
+ * @author Chris de Vreeze
+ */
+@Service
+@Primary
+public class CachingTaskService implements TaskService {
+
+    private final TaskService delegate;
+    private final Cache<Long, Task> tasksById;
+    private final Cache<String, Task> tasksByName;
+
+    public CachingTaskService(
+            @Qualifier("defaultTaskService") TaskService delegate,
+            @Value("${todo.task-cache.maximum-size:1000}") long maximumSize,
+            @Value("${todo.task-cache.expire-after-write:10m}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.tasksById = newCache(maximumSize, expireAfterWrite);
+        this.tasksByName = newCache(maximumSize, expireAfterWrite);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, tasksById, "tasksById");
+        CaffeineCacheMetrics.monitor(meterRegistry, tasksByName, "tasksByName");
+    }
+
+    @Override
+    public ImmutableList<Task> findAllTasks() {
+        return delegate.findAllTasks();
+    }
+
+    @Override
+    public ImmutableList<Task> findAllOpenTasks() {
+        return delegate.findAllOpenTasks();
+    }
+
+    @Override
+    public ImmutableList<Task> findAllClosedTasks() {
+        return delegate.findAllClosedTasks();
+    }
+
+    @Override
+    public Page<Task> findTasks(PageRequest pageRequest) {
+        return delegate.findTasks(pageRequest);
+    }
+
+    @Override
+    public Page<Task> findOpenTasks(PageRequest pageRequest) {
+        return delegate.findOpenTasks(pageRequest);
+    }
+
+    @Override
+    public Page<Task> findClosedTasks(PageRequest pageRequest) {
+        return delegate.findClosedTasks(pageRequest);
+    }
+
+    @Override
+    public void forEachTask(Consumer<? super Task> taskConsumer) {
+        delegate.forEachTask(taskConsumer);
+    }
+
+    @Override
+    public ImmutableList<Task> findTasksHavingTargetEndAfter(Instant end) {
+        return delegate.findTasksHavingTargetEndAfter(end);
+    }
+
+    @Override
+    public ImmutableList<Task> findTasksHavingTargetEndBefore(Instant end) {
+        return delegate.findTasksHavingTargetEndBefore(end);
+    }
+
+    @Override
+    public Optional<Task> findTask(long id) {
+        // Absent tasks are not cached (the loader returns null)
+        return Optional.ofNullable(tasksById.get(id, k -> delegate.findTask(k).orElse(null)));
+    }
+
+    @Override
+    public Optional<Task> findTaskByName(String name) {
+        return Optional.ofNullable(tasksByName.get(name, k -> delegate.findTaskByName(k).orElse(null)));
+    }
+
+    @Override
+    public Task addTask(Task task) {
+        Task addedTask = delegate.addTask(task);
+        tasksByName.invalidate(addedTask.name());
+        return addedTask;
+    }
+
+    @Override
+    public ImmutableList<TaskAdditionResult> addTasks(Collection<Task> tasks) {
+        ImmutableList<TaskAdditionResult> results = delegate.addTasks(tasks);
+        results.stream()
+                .filter(result -> result.status() == TaskAdditionResult.Status.ADDED)
+                .forEach(result -> tasksByName.invalidate(result.task().name()));
+        return results;
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        try {
+            return delegate.updateTask(task);
+        } finally {
+            // Also after a version conflict, since the cached task may then be the outdated one
+            task.idOption().ifPresent(tasksById::invalidate);
+            tasksByName.invalidate(task.name());
+        }
+    }
+
+    @Override
+    public Task updateTaskUnconditionally(Task task) {
+        try {
+            return delegate.updateTaskUnconditionally(task);
+        } finally {
+            task.idOption().ifPresent(tasksById::invalidate);
+            tasksByName.invalidate(task.name());
+        }
+    }
+
+    @Override
+    public Optional<String> deleteTask(long id) {
+        Optional<String> deletedNameOption = delegate.deleteTask(id);
+        tasksById.invalidate(id);
+        // Invalidation per key, so it waits for a concurrent load of the deleted task by name
+        deletedNameOption.ifPresent(tasksByName::invalidate);
+        return deletedNameOption;
+    }
+
+    @Override
+    public ImmutableSet<String> deleteTasks(Collection<Long> ids) {
+        ImmutableSet<String> deletedNames = delegate.deleteTasks(ids);
+        tasksById.invalidateAll(ImmutableSet.copyOf(ids));
+        tasksByName.invalidateAll(deletedNames);
+        return deletedNames;
+    }
+
+    @Override
+    public long deleteTasksMatching(TaskFilter filter) {
+        long deletedCount = delegate.deleteTasksMatching(filter);
+        // Cached tasks may be stale, so they cannot be reliably matched against the filter. Bulk deletes are rare.
+        tasksById.invalidateAll();
+        tasksByName.invalidateAll();
+        return deletedCount;
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        delegate.deleteAllTasks();
+        tasksById.invalidateAll();
+        tasksByName.invalidateAll();
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+}
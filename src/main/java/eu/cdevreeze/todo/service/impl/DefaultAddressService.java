@@ -19,18 +19,29 @@ package eu.cdevreeze.todo.service.impl;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.entity.AddressEntity_;
 import eu.cdevreeze.todo.model.Address;
 import eu.cdevreeze.todo.service.AddressService;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.DataVersionService.DataSet;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaDelete;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
+import jakarta.persistence.Tuple;
+import org.hibernate.SessionFactory;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
 /**
  * Default AddressService implementation.
+ * <p>
+ * Like in the DefaultTaskService, the read-only methods build records directly from query tuples,
+ * instead of from managed entities. All queries are named queries, defined in {@link AddressEntity}.
  *
  * @author Chris de Vreeze
  */
@@ -40,29 +51,36 @@ public class DefaultAddressService implements AddressService {
     // See https://thorben-janssen.com/hibernate-tips-how-to-bootstrap-hibernate-with-spring-boot/
 
     private final EntityManager entityManager;
+    private final DataVersionService dataVersionService;
+    private final BulkReader bulkReader;
 
-    public DefaultAddressService(EntityManager entityManager) {
+    public DefaultAddressService(
+            EntityManager entityManager,
+            DataVersionService dataVersionService,
+            @Value("${todo.bulk-read-mode:stateless-session}") BulkReadMode bulkReadMode
+    ) {
         this.entityManager = entityManager;
+        this.dataVersionService = dataVersionService;
+        this.bulkReader = new BulkReader(entityManager, bulkReadMode);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Address> findAllAddresses() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<AddressEntity> cq = cb.createQuery(AddressEntity.class);
-
-        Root<AddressEntity> addressRoot = cq.from(AddressEntity.class);
-        cq.select(addressRoot);
+        return bulkReader.list(AddressEntity.FIND_ALL, Map.of(), DefaultAddressService::toAddress);
+    }
 
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(AddressEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachAddress(Consumer<? super Address> addressConsumer) {
+        bulkReader.forEach(AddressEntity.FIND_ALL_ORDERED_BY_ID, Map.of(), tuple -> addressConsumer.accept(toAddress(tuple)));
     }
 
     @Override
     @Transactional
     public Address addAddress(Address address) {
+        dataVersionService.registerChange(DataSet.ADDRESSES);
+
         Preconditions.checkArgument(address.idOption().isEmpty());
         AddressEntity addressEntity = AddressEntity.fromModel(address);
 
@@ -77,9 +95,36 @@ public class DefaultAddressService implements AddressService {
     @Override
     @Transactional
     public void deleteAllAddresses() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaDelete<AddressEntity> cd = cb.createCriteriaDelete(AddressEntity.class);
+        dataVersionService.registerChange(DataSet.ADDRESSES);
+
+        entityManager.createNamedQuery(AddressEntity.DELETE_ALL).executeUpdate();
+
+        // Hibernate already invalidates the entity cache region after this bulk delete, but we are explicit here,
+        // including the natural ID cache, so that a re-added address name never resolves to a stale ID
+        org.hibernate.Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(AddressEntity.class);
+        cache.evictNaturalIdData(AddressEntity.class);
+    }
 
-        entityManager.createQuery(cd).executeUpdate();
+    private static Address toAddress(Tuple tuple) {
+        ImmutableList.Builder<String> addressLines = ImmutableList.builderWithExpectedSize(4);
+        for (String alias : List.of(
+                AddressEntity_.ADDRESS_LINE1,
+                AddressEntity_.ADDRESS_LINE2,
+                AddressEntity_.ADDRESS_LINE3,
+                AddressEntity_.ADDRESS_LINE4)) {
+            @Nullable String addressLine = tuple.get(alias, String.class);
+            if (addressLine != null) {
+                addressLines.add(addressLine);
+            }
+        }
+        return new Address(
+                OptionalLong.of(tuple.get(AddressEntity_.ID, Long.class)),
+                tuple.get(AddressEntity_.ADDRESS_NAME, String.class),
+                addressLines.build(),
+                tuple.get(AddressEntity_.ZIP_CODE, String.class),
+                tuple.get(AddressEntity_.CITY, String.class),
+                tuple.get(AddressEntity_.COUNTRY_CODE, String.class)
+        );
     }
 }
@@ -18,25 +18,42 @@ package eu.cdevreeze.todo.service.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import eu.cdevreeze.todo.entity.AddressEntity;
-import eu.cdevreeze.todo.entity.AddressEntity_;
 import eu.cdevreeze.todo.entity.AppointmentEntity;
 import eu.cdevreeze.todo.entity.AppointmentEntity_;
+import eu.cdevreeze.todo.model.Address;
 import eu.cdevreeze.todo.model.Appointment;
 import eu.cdevreeze.todo.service.AppointmentService;
-import jakarta.persistence.EntityGraph;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.DataVersionService.DataSet;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaDelete;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.Tuple;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 /**
  * Default AppointmentService implementation.
+ * <p>
+ * Like in the DefaultTaskService, the read-only methods build records directly from query tuples, instead of
+ * from managed entities. Addresses of appointments are not joined, but resolved by ID, normally from the
+ * second-level cache. Cache misses are loaded in batches.
+ * <p>
+ * All queries are named queries, defined in {@link AppointmentEntity}.
  *
  * @author Chris de Vreeze
  */
@@ -45,113 +62,92 @@ public class DefaultAppointmentService implements AppointmentService {
 
     // See https://thorben-janssen.com/hibernate-tips-how-to-bootstrap-hibernate-with-spring-boot/
 
-    private final EntityManager entityManager;
+    private static final int EXPORT_CHUNK_SIZE = 500;
 
-    public DefaultAppointmentService(EntityManager entityManager) {
+    private final EntityManager entityManager;
+    private final DataVersionService dataVersionService;
+    private final BulkReader bulkReader;
+
+    public DefaultAppointmentService(
+            EntityManager entityManager,
+            DataVersionService dataVersionService,
+            @Value("${todo.bulk-read-mode:stateless-session}") BulkReadMode bulkReadMode
+    ) {
         this.entityManager = entityManager;
+        this.dataVersionService = dataVersionService;
+        this.bulkReader = new BulkReader(entityManager, bulkReadMode);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Appointment> findAllAppointments() {
-        EntityGraph<AppointmentEntity> eg = entityManager.createEntityGraph(AppointmentEntity.class);
-        eg.addSubgraph(AppointmentEntity_.address);
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<AppointmentEntity> cq = cb.createQuery(AppointmentEntity.class);
-
-        Root<AppointmentEntity> appointmentRoot = cq.from(AppointmentEntity.class);
-        cq.select(appointmentRoot);
+        return toAppointments(bulkReader.list(AppointmentEntity.FIND_ALL, Map.of(), tuple -> tuple));
+    }
 
-        return entityManager.createQuery(cq)
-                .setHint("jakarta.persistence.fetchgraph", eg)
-                .getResultStream()
-                .map(AppointmentEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachAppointment(Consumer<? super Appointment> appointmentConsumer) {
+        // Addresses are shared by many appointments, so they are only resolved once per export. The appointments
+        // are passed on in chunks, resolving the new addresses of a chunk in one batch.
+        Map<Long, Address> addressesById = new HashMap<>();
+        List<Tuple> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        bulkReader.forEach(
+                AppointmentEntity.FIND_ALL_ORDERED_BY_ID,
+                Map.of(),
+                tuple -> {
+                    chunk.add(tuple);
+                    if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                        acceptChunk(chunk, addressesById, appointmentConsumer);
+                    }
+                }
+        );
+        acceptChunk(chunk, addressesById, appointmentConsumer);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Appointment> findAppointmentsBetween(Instant start, Instant end) {
-        EntityGraph<AppointmentEntity> eg = entityManager.createEntityGraph(AppointmentEntity.class);
-        eg.addSubgraph(AppointmentEntity_.address);
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<AppointmentEntity> cq = cb.createQuery(AppointmentEntity.class);
-
-        Root<AppointmentEntity> appointmentRoot = cq.from(AppointmentEntity.class);
-        cq.where(
-                cb.and(
-                        cb.greaterThanOrEqualTo(appointmentRoot.get(AppointmentEntity_.start), start),
-                        cb.lessThan(appointmentRoot.get(AppointmentEntity_.end), end)
-                )
+        return toAppointments(
+                bulkReader.list(AppointmentEntity.FIND_BETWEEN, Map.of("start", start, "end", end), tuple -> tuple)
         );
-        cq.select(appointmentRoot);
+    }
 
-        return entityManager.createQuery(cq)
-                .setHint("jakarta.persistence.fetchgraph", eg)
-                .getResultStream()
-                .map(AppointmentEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+    @Override
+    @Transactional(readOnly = true)
+    public ImmutableList<Appointment> findAppointmentsOverlapping(Instant start, Instant end) {
+        return toAppointments(
+                bulkReader.list(AppointmentEntity.FIND_OVERLAPPING, Map.of("start", start, "end", end), tuple -> tuple)
+        );
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Appointment> findAppointmentsEndingAfter(Instant end) {
-        EntityGraph<AppointmentEntity> eg = entityManager.createEntityGraph(AppointmentEntity.class);
-        eg.addSubgraph(AppointmentEntity_.address);
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<AppointmentEntity> cq = cb.createQuery(AppointmentEntity.class);
-
-        Root<AppointmentEntity> appointmentRoot = cq.from(AppointmentEntity.class);
-        cq.where(cb.greaterThan(appointmentRoot.get(AppointmentEntity_.end), end));
-        cq.select(appointmentRoot);
-
-        return entityManager.createQuery(cq)
-                .setHint("jakarta.persistence.fetchgraph", eg)
-                .getResultStream()
-                .map(AppointmentEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+        return toAppointments(bulkReader.list(AppointmentEntity.FIND_ENDING_AFTER, Map.of("end", end), tuple -> tuple));
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Appointment> findAppointmentsEndingBefore(Instant end) {
-        EntityGraph<AppointmentEntity> eg = entityManager.createEntityGraph(AppointmentEntity.class);
-        eg.addSubgraph(AppointmentEntity_.address);
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<AppointmentEntity> cq = cb.createQuery(AppointmentEntity.class);
-
-        Root<AppointmentEntity> appointmentRoot = cq.from(AppointmentEntity.class);
-        cq.where(cb.lessThan(appointmentRoot.get(AppointmentEntity_.end), end));
-        cq.select(appointmentRoot);
-
-        return entityManager.createQuery(cq)
-                .setHint("jakarta.persistence.fetchgraph", eg)
-                .getResultStream()
-                .map(AppointmentEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+        return toAppointments(bulkReader.list(AppointmentEntity.FIND_ENDING_BEFORE, Map.of("end", end), tuple -> tuple));
     }
 
     @Override
     @Transactional
     public Appointment addAppointment(Appointment.NewAppointment appointment) {
+        dataVersionService.registerChange(DataSet.APPOINTMENTS);
+
         AppointmentEntity appointmentEntity =
                 AppointmentEntity.newAppointmentIgnoringAssociations(appointment);
 
         if (appointment.addressNameOption().isPresent()) {
             String addressName = appointment.addressNameOption().orElseThrow();
 
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<AddressEntity> cq = cb.createQuery(AddressEntity.class);
-
-            Root<AddressEntity> addressRoot = cq.from(AddressEntity.class);
-            cq.where(cb.equal(addressRoot.get(AddressEntity_.addressName), addressName));
-            cq.select(addressRoot);
-
-            AddressEntity address = entityManager.createQuery(cq).getSingleResult();
+            // Natural ID lookup, normally resolved from the second-level cache without touching the database
+            AddressEntity address = entityManager.unwrap(Session.class)
+                    .bySimpleNaturalId(AddressEntity.class)
+                    .loadOptional(addressName)
+                    .orElseThrow(() -> new NoResultException(String.format("No address found named '%s'", addressName)));
 
             appointmentEntity.setAddress(address);
         }
@@ -167,9 +163,85 @@ public class DefaultAppointmentService implements AppointmentService {
     @Override
     @Transactional
     public void deleteAllAppointments() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaDelete<AppointmentEntity> cd = cb.createCriteriaDelete(AppointmentEntity.class);
+        dataVersionService.registerChange(DataSet.APPOINTMENTS);
+
+        entityManager.createNamedQuery(AppointmentEntity.DELETE_ALL).executeUpdate();
+    }
 
-        entityManager.createQuery(cd).executeUpdate();
+    private ImmutableList<Appointment> toAppointments(List<Tuple> appointmentTuples) {
+        Map<Long, Address> addressesById = findAddresses(addressIds(appointmentTuples));
+
+        return appointmentTuples.stream()
+                .map(tuple -> toAppointment(tuple, addressesById))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private void acceptChunk(
+            List<Tuple> appointmentTuples,
+            Map<Long, Address> addressesById,
+            Consumer<? super Appointment> appointmentConsumer
+    ) {
+        List<Long> newAddressIds = addressIds(appointmentTuples).stream()
+                .filter(addressId -> !addressesById.containsKey(addressId))
+                .toList();
+        addressesById.putAll(findAddresses(newAddressIds));
+
+        appointmentTuples.forEach(tuple -> appointmentConsumer.accept(toAppointment(tuple, addressesById)));
+        appointmentTuples.clear();
+    }
+
+    private static List<Long> addressIds(List<Tuple> appointmentTuples) {
+        return appointmentTuples.stream()
+                .map(tuple -> tuple.get(AppointmentEntity.ADDRESS_ID, Long.class))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    private static Appointment toAppointment(Tuple tuple, Map<Long, Address> addressesById) {
+        long id = tuple.get(AppointmentEntity_.ID, Long.class);
+        return new Appointment(
+                OptionalLong.of(id),
+                tuple.get(AppointmentEntity_.NAME, String.class),
+                tuple.get(AppointmentEntity_.START, Instant.class),
+                tuple.get(AppointmentEntity_.END, Instant.class),
+                Optional.ofNullable(tuple.get(AppointmentEntity.ADDRESS_ID, Long.class))
+                        .map(addressId -> getAddress(addressesById, addressId, id)),
+                Optional.ofNullable(tuple.get(AppointmentEntity_.EXTRA_INFORMATION, String.class))
+        );
+    }
+
+    private static Address getAddress(Map<Long, Address> addressesById, long addressId, long appointmentId) {
+        Address address = addressesById.get(addressId);
+        if (address == null) {
+            // Only possible if the address has been deleted after the appointments have been queried
+            throw new IllegalStateException(
+                    String.format("Address %d of appointment %d not found (deleted in the meantime?)", addressId, appointmentId)
+            );
+        }
+        return address;
+    }
+
+    /**
+     * Finds the addresses with the given IDs, normally in the second-level cache, and otherwise in the database,
+     * in batches. Addresses that do not exist are left out of the result. The address entities are detached
+     * again, so the persistence context does not grow during an export.
+     */
+    private ImmutableMap<Long, Address> findAddresses(List<Long> addressIds) {
+        if (addressIds.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        // Without explicit cache mode, multiLoad skips the second-level cache, and always queries the database
+        List<AddressEntity> addressEntities = entityManager.unwrap(Session.class)
+                .byMultipleIds(AddressEntity.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(addressIds)
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+        ImmutableMap<Long, Address> addressesById =
+                addressEntities.stream().collect(ImmutableMap.toImmutableMap(AddressEntity::getId, AddressEntity::toModel));
+        addressEntities.forEach(entityManager::detach);
+        return addressesById;
     }
 }
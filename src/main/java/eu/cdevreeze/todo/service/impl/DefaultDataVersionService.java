@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import eu.cdevreeze.todo.service.DataVersionService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default DataVersionService implementation, holding an in-memory counter per data set. The version strings
+ * combine a random "epoch" (per application start) with the counter, so versions never repeat after a restart.
+ *
+ * @author Chris de Vreeze
+ */
+@Service
+public class DefaultDataVersionService implements DataVersionService {
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<DataSet, AtomicLong> counters = new EnumMap<>(DataSet.class);
+
+    public DefaultDataVersionService() {
+        Arrays.stream(DataSet.values()).forEach(dataSet -> counters.put(dataSet, new AtomicLong()));
+    }
+
+    @Override
+    public String getVersion(DataSet dataSet) {
+        return epoch + "-" + counters.get(dataSet).get();
+    }
+
+    @Override
+    public void registerChange(DataSet dataSet) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Also after a rollback, which is harmless, and is the safe choice if the outcome is unknown
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    counters.get(dataSet).incrementAndGet();
+                }
+            });
+        } else {
+            counters.get(dataSet).incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.SearchHit;
+import eu.cdevreeze.todo.service.SearchService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Default SearchService implementation, using PostgreSQL full-text search.
+ * <p>
+ * The searched columns are combined in a "search_vector" tsvector column per table, generated by the database
+ * and indexed with a GIN index (see migration V3). So a search is an index lookup per table, and only the best
+ * hits leave the database. The query is parsed by websearch_to_tsquery, which accepts any user input.
+ *
+ * @author Chris de Vreeze
+ */
+@Service
+public class DefaultSearchService implements SearchService {
+
+    // Each branch of the "union all" is limited on its own, so only the best hits per table are merged
+    private static final String SEARCH_SQL = """
+            with search as (select websearch_to_tsquery('simple', :query) as query)
+            (select 'TASK' as kind, t.id, t.name, t.description as summary,
+                    ts_rank(t.search_vector, search.query) as rank
+               from Task t cross join search
+              where t.search_vector @@ search.query
+              order by rank desc
+              limit :limit)
+            union all
+            (select 'APPOINTMENT' as kind, a.id, a.name, coalesce(a.extra_information, '') as summary,
+                    ts_rank(a.search_vector, search.query) as rank
+               from Appointment a cross join search
+              where a.search_vector @@ search.query
+              order by rank desc
+              limit :limit)
+            union all
+            (select 'ADDRESS' as kind, ad.id, ad.name, ad.zip_code || ' ' || ad.city as summary,
+                    ts_rank(ad.search_vector, search.query) as rank
+               from Address ad cross join search
+              where ad.search_vector @@ search.query
+              order by rank desc
+              limit :limit)
+            order by rank desc, kind, id
+            limit :limit
+            """;
+
+    private final EntityManager entityManager;
+
+    public DefaultSearchService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ImmutableList<SearchHit> search(String query, int limit) {
+        Preconditions.checkArgument(limit > 0, "Limit must be positive");
+
+        if (query.isBlank()) {
+            return ImmutableList.of();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Tuple> tuples = entityManager.createNativeQuery(SEARCH_SQL, Tuple.class)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .getResultList();
+        return tuples.stream().map(DefaultSearchService::toSearchHit).collect(ImmutableList.toImmutableList());
+    }
+
+    private static SearchHit toSearchHit(Tuple tuple) {
+        return new SearchHit(
+                SearchHit.Kind.valueOf(tuple.get("kind", String.class)),
+                tuple.get("id", Number.class).longValue(),
+                tuple.get("name", String.class),
+                tuple.get("summary", String.class),
+                tuple.get("rank", Number.class).doubleValue()
+        );
+    }
+}
@@ -17,25 +17,55 @@
 package eu.cdevreeze.todo.service.impl;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import eu.cdevreeze.todo.entity.TaskEntity;
 import eu.cdevreeze.todo.entity.TaskEntity_;
 import eu.cdevreeze.todo.exception.TaskExistsException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
 import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.DataVersionService.DataSet;
 import eu.cdevreeze.todo.service.TaskService;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaDelete;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Root;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Default TaskService implementation.
+ * <p>
+ * The read-only methods query for tuples, from which Task records are built directly. So query results are not
+ * loaded as managed entities, which would be registered in the persistence context, along with snapshots for
+ * dirty checking, only to be converted to records. Entities are only used for writes.
+ * <p>
+ * All queries are named queries, defined in {@link TaskEntity}. So they are not built and interpreted again
+ * on each call.
+ * <p>
+ * Bulk queries, potentially returning many tasks, are run by a {@link BulkReader}, by default through
+ * a stateless session (see {@link BulkReadMode}).
  *
  * @author Chris de Vreeze
  */
@@ -44,179 +74,341 @@ public class DefaultTaskService implements TaskService {
 
     // See https://thorben-janssen.com/hibernate-tips-how-to-bootstrap-hibernate-with-spring-boot/
 
-    private final EntityManager entityManager;
+    private static final String UNIQUE_NAME_CONSTRAINT = "uk_name";
+
+    // Matching property hibernate.jdbc.batch_size, so that each flush sends full JDBC batches
+    private static final int INSERT_BATCH_SIZE = 50;
+
+    // Keeping the number of bind parameters per query well below the PostgreSQL limit
+    private static final int IN_LIST_CHUNK_SIZE = 1000;
 
-    public DefaultTaskService(EntityManager entityManager) {
+    private final EntityManager entityManager;
+    private final DataVersionService dataVersionService;
+    private final BulkReader bulkReader;
+
+    public DefaultTaskService(
+            EntityManager entityManager,
+            DataVersionService dataVersionService,
+            @Value("${todo.bulk-read-mode:stateless-session}") BulkReadMode bulkReadMode
+    ) {
         this.entityManager = entityManager;
+        this.dataVersionService = dataVersionService;
+        this.bulkReader = new BulkReader(entityManager, bulkReadMode);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Task> findAllTasks() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
-
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.select(taskRoot);
-
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(TaskEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+        return bulkReader.list(TaskEntity.FIND_ALL, Map.of(), DefaultTaskService::toTask);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Task> findAllOpenTasks() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
-
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.equal(taskRoot.get(TaskEntity_.closed), false));
-        cq.select(taskRoot);
-
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(TaskEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+        return bulkReader.list(TaskEntity.FIND_ALL_BY_CLOSED, Map.of("closed", false), DefaultTaskService::toTask);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Task> findAllClosedTasks() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
+        return bulkReader.list(TaskEntity.FIND_ALL_BY_CLOSED, Map.of("closed", true), DefaultTaskService::toTask);
+    }
 
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.equal(taskRoot.get(TaskEntity_.closed), true));
-        cq.select(taskRoot);
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Task> findTasks(PageRequest pageRequest) {
+        return findTaskPage(pageRequest, Optional.empty());
+    }
 
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(TaskEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Task> findOpenTasks(PageRequest pageRequest) {
+        return findTaskPage(pageRequest, Optional.of(false));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public ImmutableList<Task> findTasksHavingTargetEndAfter(Instant end) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
+    public Page<Task> findClosedTasks(PageRequest pageRequest) {
+        return findTaskPage(pageRequest, Optional.of(true));
+    }
 
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.greaterThan(taskRoot.get(TaskEntity_.targetEnd), end));
-        cq.select(taskRoot);
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTask(Consumer<? super Task> taskConsumer) {
+        bulkReader.forEach(TaskEntity.FIND_ALL_ORDERED_BY_ID, Map.of(), tuple -> taskConsumer.accept(toTask(tuple)));
+    }
 
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(TaskEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+    @Override
+    @Transactional(readOnly = true)
+    public ImmutableList<Task> findTasksHavingTargetEndAfter(Instant end) {
+        return bulkReader.list(TaskEntity.FIND_HAVING_TARGET_END_AFTER, Map.of("end", end), DefaultTaskService::toTask);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ImmutableList<Task> findTasksHavingTargetEndBefore(Instant end) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
-
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.lessThan(taskRoot.get(TaskEntity_.targetEnd), end));
-        cq.select(taskRoot);
-
-        return entityManager.createQuery(cq)
-                .getResultStream()
-                .map(TaskEntity::toModel)
-                .collect(ImmutableList.toImmutableList());
+        return bulkReader.list(TaskEntity.FIND_HAVING_TARGET_END_BEFORE, Map.of("end", end), DefaultTaskService::toTask);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Task> findTask(long id) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
-
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.equal(taskRoot.get(TaskEntity_.id), id));
-        cq.select(taskRoot);
-
-        return entityManager.createQuery(cq)
+        return entityManager.createNamedQuery(TaskEntity.FIND_BY_ID, Tuple.class)
+                .setParameter("id", id)
                 .getResultStream()
-                .map(TaskEntity::toModel)
+                .map(DefaultTaskService::toTask)
                 .findFirst();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Task> findTaskByName(String name) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<TaskEntity> cq = cb.createQuery(TaskEntity.class);
-
-        Root<TaskEntity> taskRoot = cq.from(TaskEntity.class);
-        cq.where(cb.equal(taskRoot.get(TaskEntity_.name), name));
-        cq.select(taskRoot);
-
-        return entityManager.createQuery(cq)
+        return entityManager.createNamedQuery(TaskEntity.FIND_BY_NAME, Tuple.class)
+                .setParameter("name", name)
                 .getResultStream()
-                .map(TaskEntity::toModel)
+                .map(DefaultTaskService::toTask)
                 .findFirst();
     }
 
     @Override
     @Transactional
     public Task addTask(Task task) {
-        Preconditions.checkArgument(task.idOption().isEmpty());
+        dataVersionService.registerChange(DataSet.TASKS);
 
-        // Self call
-        if (findTaskByName(task.name()).isPresent()) {
-            throw new TaskExistsException(task);
-        }
+        Preconditions.checkArgument(task.idOption().isEmpty());
 
         TaskEntity taskEntity = TaskEntity.fromModel(task);
 
-        entityManager.persist(taskEntity);
-        entityManager.flush();
+        // No pre-check query on the task name. The unique constraint is the (atomic) check, also under concurrent load
+        try {
+            entityManager.persist(taskEntity);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (isUniqueNameViolation(e)) {
+                throw new TaskExistsException(task, e);
+            }
+            throw e;
+        }
 
         var resultTask = taskEntity.toModel();
         Preconditions.checkArgument(resultTask.idOption().isPresent());
         return resultTask;
     }
 
+    private static boolean isUniqueNameViolation(PersistenceException e) {
+        return Throwables.getCausalChain(e).stream()
+                .filter(ConstraintViolationException.class::isInstance)
+                .map(ConstraintViolationException.class::cast)
+                .anyMatch(cve -> UNIQUE_NAME_CONSTRAINT.equalsIgnoreCase(cve.getConstraintName()));
+    }
+
     @Override
     @Transactional
-    public Task updateTask(Task task) {
-        Preconditions.checkArgument(task.idOption().isPresent());
+    public ImmutableList<TaskAdditionResult> addTasks(Collection<Task> tasks) {
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        Preconditions.checkArgument(tasks.stream().allMatch(task -> task.idOption().isEmpty()));
+
+        Set<String> existingNames =
+                findExistingTaskNames(tasks.stream().map(Task::name).collect(ImmutableSet.toImmutableSet()));
+        Set<String> addedNames = new HashSet<>();
+
+        ImmutableList.Builder<TaskAdditionResult> results = ImmutableList.builderWithExpectedSize(tasks.size());
+        int unflushedInsertCount = 0;
+        for (Task task : tasks) {
+            if (existingNames.contains(task.name())) {
+                results.add(new TaskAdditionResult(task, TaskAdditionResult.Status.NAME_EXISTS));
+            } else if (!addedNames.add(task.name())) {
+                results.add(new TaskAdditionResult(task, TaskAdditionResult.Status.DUPLICATE_NAME_IN_BATCH));
+            } else {
+                TaskEntity taskEntity = TaskEntity.fromModel(task);
+                entityManager.persist(taskEntity);
+
+                // The ID has already been assigned, from a pooled block of sequence values
+                results.add(new TaskAdditionResult(taskEntity.toModel(), TaskAdditionResult.Status.ADDED));
+                unflushedInsertCount += 1;
+
+                if (unflushedInsertCount == INSERT_BATCH_SIZE) {
+                    // Sending one JDBC batch, and keeping the persistence context small
+                    entityManager.flush();
+                    entityManager.clear();
+                    unflushedInsertCount = 0;
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
 
-        TaskEntity taskEntity = entityManager.find(TaskEntity.class, task.idOption().orElseThrow());
-        Preconditions.checkArgument(taskEntity.getName().equals(task.name()));
+        return results.build();
+    }
 
-        taskEntity.setDescription(task.description());
-        taskEntity.setTargetEnd(task.targetEndOption().orElse(null));
-        taskEntity.setExtraInformation(task.extraInformationOption().orElse(null));
-        taskEntity.setClosed(task.closed());
+    @Override
+    @Transactional
+    public Task updateTask(Task task) {
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        Preconditions.checkArgument(task.idOption().isPresent(), "Missing ID of task to update");
+        Preconditions.checkArgument(task.versionOption().isPresent(), "Missing version of task to update");
+
+        long id = task.idOption().orElseThrow();
+        long version = task.versionOption().orElseThrow();
+
+        // One conditional update statement, without first loading (and locking) the row
+        int updateCount = entityManager.createNamedQuery(TaskEntity.UPDATE_IF_VERSION_MATCHES)
+                .setParameter("id", id)
+                .setParameter("name", task.name())
+                .setParameter("version", version)
+                .setParameter("description", task.description())
+                .setParameter("targetEnd", task.targetEndOption().orElse(null))
+                .setParameter("extraInformation", task.extraInformationOption().orElse(null))
+                .setParameter("closed", task.closed())
+                .executeUpdate();
+
+        if (updateCount == 0) {
+            // Only on failure is the row read, to find out why no row has been updated
+            Task storedTask = findTask(id).orElseThrow(() -> new TaskNotFoundException(id));
+            Preconditions.checkArgument(storedTask.name().equals(task.name()), "The name of a task cannot be updated");
+            throw new TaskVersionConflictException(task, storedTask.versionOption().orElseThrow());
+        }
 
-        entityManager.merge(taskEntity);
-        entityManager.flush();
+        return task.withVersion(version + 1);
+    }
 
-        return taskEntity.toModel();
+    @Override
+    @Transactional
+    public Task updateTaskUnconditionally(Task task) {
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        Preconditions.checkArgument(task.idOption().isPresent(), "Missing ID of task to update");
+
+        long id = task.idOption().orElseThrow();
+
+        int updateCount = entityManager.createNamedQuery(TaskEntity.UPDATE_ANY_VERSION)
+                .setParameter("id", id)
+                .setParameter("name", task.name())
+                .setParameter("description", task.description())
+                .setParameter("targetEnd", task.targetEndOption().orElse(null))
+                .setParameter("extraInformation", task.extraInformationOption().orElse(null))
+                .setParameter("closed", task.closed())
+                .executeUpdate();
+
+        // The updated row is locked until commit, so reading it back returns the version set by this update
+        Task storedTask = findTask(id).orElseThrow(() -> new TaskNotFoundException(id));
+        if (updateCount == 0) {
+            Preconditions.checkArgument(storedTask.name().equals(task.name()), "The name of a task cannot be updated");
+        }
+        return storedTask;
     }
 
     @Override
     @Transactional
-    public void deleteTask(long id) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaDelete<TaskEntity> cd = cb.createCriteriaDelete(TaskEntity.class);
+    public Optional<String> deleteTask(long id) {
+        dataVersionService.registerChange(DataSet.TASKS);
 
-        cd.where(cb.equal(cd.getRoot().get(TaskEntity_.id), id));
+        Optional<String> nameOption = entityManager.createNamedQuery(TaskEntity.FIND_NAMES_BY_IDS, String.class)
+                .setParameter("ids", List.of(id))
+                .getResultStream()
+                .findFirst();
+        if (nameOption.isPresent()) {
+            entityManager.createNamedQuery(TaskEntity.DELETE_BY_ID)
+                    .setParameter("id", id)
+                    .executeUpdate();
+        }
+        return nameOption;
+    }
 
-        entityManager.createQuery(cd).executeUpdate();
+    @Override
+    @Transactional
+    public ImmutableSet<String> deleteTasks(Collection<Long> ids) {
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        // The names of the deleted tasks are returned, so that callers can invalidate caches keyed by task name
+        ImmutableSet.Builder<String> deletedNames = ImmutableSet.builder();
+        for (List<Long> idsChunk : Iterables.partition(ImmutableSet.copyOf(ids), IN_LIST_CHUNK_SIZE)) {
+            List<String> names = entityManager.createNamedQuery(TaskEntity.FIND_NAMES_BY_IDS, String.class)
+                    .setParameter("ids", idsChunk)
+                    .getResultList();
+            if (!names.isEmpty()) {
+                entityManager.createNamedQuery(TaskEntity.DELETE_BY_IDS)
+                        .setParameter("ids", idsChunk)
+                        .executeUpdate();
+                deletedNames.addAll(names);
+            }
+        }
+        return deletedNames.build();
+    }
+
+    @Override
+    @Transactional
+    public long deleteTasksMatching(TaskFilter filter) {
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        // One named query per combination of filter criteria, instead of one query with optional predicates,
+        // so that each delete statement can use the matching index
+        Query query;
+        if (filter.closedOption().isPresent() && filter.targetEndBeforeOption().isPresent()) {
+            query = entityManager.createNamedQuery(TaskEntity.DELETE_BY_CLOSED_HAVING_TARGET_END_BEFORE)
+                    .setParameter("closed", filter.closedOption().orElseThrow())
+                    .setParameter("end", filter.targetEndBeforeOption().orElseThrow());
+        } else if (filter.closedOption().isPresent()) {
+            query = entityManager.createNamedQuery(TaskEntity.DELETE_BY_CLOSED)
+                    .setParameter("closed", filter.closedOption().orElseThrow());
+        } else {
+            query = entityManager.createNamedQuery(TaskEntity.DELETE_HAVING_TARGET_END_BEFORE)
+                    .setParameter("end", filter.targetEndBeforeOption().orElseThrow());
+        }
+        return query.executeUpdate();
     }
 
     @Override
     @Transactional
     public void deleteAllTasks() {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaDelete<TaskEntity> cd = cb.createCriteriaDelete(TaskEntity.class);
+        dataVersionService.registerChange(DataSet.TASKS);
+
+        entityManager.createNamedQuery(TaskEntity.DELETE_ALL).executeUpdate();
+    }
 
-        entityManager.createQuery(cd).executeUpdate();
+    private Page<Task> findTaskPage(PageRequest pageRequest, Optional<Boolean> closedOption) {
+        // Keyset pagination, seeking to the first task after the last one of the previous page (if any)
+        long afterId = pageRequest.pageTokenOption().map(PageTokens::decode).orElse(Long.MIN_VALUE);
+
+        TypedQuery<Tuple> query = closedOption
+                .map(closed -> entityManager.createNamedQuery(TaskEntity.FIND_PAGE_BY_CLOSED, Tuple.class)
+                        .setParameter("closed", closed))
+                .orElseGet(() -> entityManager.createNamedQuery(TaskEntity.FIND_PAGE, Tuple.class))
+                .setParameter("afterId", afterId);
+
+        // Fetching one more task than the page size, to find out if there is a next page
+        ImmutableList<Task> tasks = query
+                .setMaxResults(pageRequest.pageSize() + 1)
+                .getResultStream()
+                .map(DefaultTaskService::toTask)
+                .collect(ImmutableList.toImmutableList());
+        return PageTokens.toPage(tasks, pageRequest.pageSize(), task -> task.idOption().orElseThrow());
+    }
+
+    private static Task toTask(Tuple tuple) {
+        return new Task(
+                OptionalLong.of(tuple.get(TaskEntity_.ID, Long.class)),
+                tuple.get(TaskEntity_.NAME, String.class),
+                tuple.get(TaskEntity_.DESCRIPTION, String.class),
+                Optional.ofNullable(tuple.get(TaskEntity_.TARGET_END, Instant.class)),
+                Optional.ofNullable(tuple.get(TaskEntity_.EXTRA_INFORMATION, String.class)),
+                tuple.get(TaskEntity_.CLOSED, Boolean.class),
+                OptionalLong.of(tuple.get(TaskEntity_.VERSION, Long.class))
+        );
+    }
+
+    private ImmutableSet<String> findExistingTaskNames(Set<String> names) {
+        ImmutableSet.Builder<String> existingNames = ImmutableSet.builder();
+
+        for (List<String> namesChunk : Iterables.partition(names, IN_LIST_CHUNK_SIZE)) {
+            existingNames.addAll(
+                    entityManager.createNamedQuery(TaskEntity.FIND_NAMES_IN, String.class)
+                            .setParameter("names", namesChunk)
+                            .getResultList()
+            );
+        }
+        return existingNames.build();
     }
 }
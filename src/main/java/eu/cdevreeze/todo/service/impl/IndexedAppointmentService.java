@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.service.AppointmentService;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * AppointmentService decorating the DefaultAppointmentService with an in-memory {@link AppointmentIntervalIndex}
+ * of all appointments, answering time range queries without touching the database. It is only used if property
+ * "todo.appointment-index.enabled" is true. Otherwise, all queries go to the database.
+ * <p>
+ * The index is loaded on first use, and kept in sync with additions and deletions through this service. Writes
+ * through other application instances (or directly in the database) are not seen by the index.
+ * <p>
+ * Database calls for additions run outside the lock, which only guards swapping in a new index. If the index
+ * has been loaded or cleared while an appointment was being added, it is not known whether the new index contains
+ * that appointment, so the index is dropped and reloaded on next use.
+ *
+ * @author Chris de Vreeze
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "todo.appointment-index.enabled", havingValue = "true")
+public class IndexedAppointmentService implements AppointmentService {
+
+    private final AppointmentService delegate;
+
+    // A ReentrantLock rather than synchronized blocks, so that virtual threads loading the index do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile @Nullable AppointmentIntervalIndex index;
+
+    // Incremented (under the lock) whenever the index is loaded or cleared
+    private long generation;
+
+    public IndexedAppointmentService(@Qualifier("defaultAppointmentService") AppointmentService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ImmutableList<Appointment> findAllAppointments() {
+        return delegate.findAllAppointments();
+    }
+
+    @Override
+    public void forEachAppointment(Consumer<? super Appointment> appointmentConsumer) {
+        delegate.forEachAppointment(appointmentConsumer);
+    }
+
+    @Override
+    public ImmutableList<Appointment> findAppointmentsBetween(Instant start, Instant end) {
+        return getIndex().findAppointmentsBetween(start, end);
+    }
+
+    @Override
+    public ImmutableList<Appointment> findAppointmentsOverlapping(Instant start, Instant end) {
+        return getIndex().findAppointmentsOverlapping(start, end);
+    }
+
+    @Override
+    public ImmutableList<Appointment> findAppointmentsEndingAfter(Instant end) {
+        return getIndex().findAppointmentsEndingAfter(end);
+    }
+
+    @Override
+    public ImmutableList<Appointment> findAppointmentsEndingBefore(Instant end) {
+        return getIndex().findAppointmentsEndingBefore(end);
+    }
+
+    @Override
+    public Appointment addAppointment(Appointment.NewAppointment appointment) {
+        long generationBefore = currentGeneration();
+        // The database transaction runs outside the lock, so appointment additions are not serialized
+        Appointment addedAppointment = delegate.addAppointment(appointment);
+
+        lock.lock();
+        try {
+            AppointmentIntervalIndex currentIndex = index;
+            if (generation != generationBefore) {
+                // The index has been (re)loaded or cleared in the meantime, possibly with this appointment in it
+                index = null;
+            } else if (currentIndex != null) {
+                index = currentIndex.plus(addedAppointment);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return addedAppointment;
+    }
+
+    @Override
+    public void deleteAllAppointments() {
+        delegate.deleteAllAppointments();
+
+        lock.lock();
+        try {
+            // Reloaded on next use, so appointments added concurrently after the deletion are not lost
+            generation++;
+            index = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AppointmentIntervalIndex getIndex() {
+        AppointmentIntervalIndex currentIndex = index;
+        if (currentIndex != null) {
+            return currentIndex;
+        }
+        lock.lock();
+        try {
+            AppointmentIntervalIndex loadedIndex = index;
+            if (loadedIndex == null) {
+                loadedIndex = AppointmentIntervalIndex.of(delegate.findAllAppointments());
+                generation++;
+                index = loadedIndex;
+            }
+            return loadedIndex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.exception.InvalidPageTokenException;
+import eu.cdevreeze.todo.model.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Encoding and decoding of opaque page tokens for keyset pagination. A page token holds the
+ * (ascending) primary key of the last row of the previous page, so the next page can "seek" to
+ * the first row after it, using the primary key index, instead of skipping rows with an offset.
+ *
+ * @author Chris de Vreeze
+ */
+final class PageTokens {
+
+    private static final String PREFIX = "id:";
+
+    private PageTokens() {
+    }
+
+    static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the page token, returning the primary key of the last row of the previous page.
+     * Throws an {@link InvalidPageTokenException} if the page token is not a valid page token.
+     */
+    static long decode(String pageToken) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageTokenException(pageToken, e);
+        }
+        if (!decoded.startsWith(PREFIX)) {
+            throw new InvalidPageTokenException(pageToken);
+        }
+        try {
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidPageTokenException(pageToken, e);
+        }
+    }
+
+    /**
+     * Turns a query result of at most one row more than the page size into a page.
+     * That extra row, if any, only signals that there is a next page.
+     */
+    static <T> Page<T> toPage(ImmutableList<T> rows, int pageSize, ToLongFunction<T> getId) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, Optional.empty());
+        } else {
+            ImmutableList<T> items = rows.subList(0, pageSize);
+            return new Page<>(items, Optional.of(encode(getId.applyAsLong(items.get(pageSize - 1)))));
+        }
+    }
+}
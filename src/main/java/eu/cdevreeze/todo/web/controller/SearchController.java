@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.controller;
+
+import eu.cdevreeze.todo.service.SearchService;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Web MVC controller for the search page, reached through the search box in the navigation header.
+ * <p>
+ * Like in the TaskController, searches are handled in the {@link Workload#UI} execution lane.
+ *
+ * @author Chris de Vreeze
+ */
+@Controller
+public class SearchController {
+
+    private final SearchService searchService;
+    private final WorkloadExecutors workloadExecutors;
+    private final int searchLimit;
+
+    public SearchController(
+            SearchService searchService,
+            WorkloadExecutors workloadExecutors,
+            @Value("${todo.search.default-limit:20}") int searchLimit
+    ) {
+        this.searchService = searchService;
+        this.workloadExecutors = workloadExecutors;
+        this.searchLimit = searchLimit;
+    }
+
+    @GetMapping(value = "/search")
+    public CompletableFuture<String> search(@RequestParam(name = "q", defaultValue = "") String query, Model model) {
+        model.addAttribute("query", query);
+
+        return workloadExecutors.supplyAsync(Workload.UI, () -> {
+            model.addAttribute("hits", searchService.search(query, searchLimit));
+
+            return "search";
+        });
+    }
+}
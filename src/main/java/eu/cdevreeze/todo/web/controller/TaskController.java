@@ -16,19 +16,48 @@
 
 package eu.cdevreeze.todo.web.controller;
 
+import eu.cdevreeze.todo.exception.InvalidPageTokenException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
 import eu.cdevreeze.todo.model.Task;
 import eu.cdevreeze.todo.service.TaskService;
 import eu.cdevreeze.todo.web.formdata.TaskFormData;
+import eu.cdevreeze.todo.web.statementbudget.StatementBudget;
+import eu.cdevreeze.todo.web.workload.LanePermit;
+import eu.cdevreeze.todo.web.workload.LanePermitInterceptor;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Web MVC controller for tasks.
+ * <p>
+ * Requests needing the database are handled asynchronously, in the {@link Workload#UI} execution lane,
+ * so the pages remain responsive when the API or exports are under heavy load.
+ * <p>
+ * The tasks page is either rendered after querying the full page of tasks, or while querying it chunk by chunk
+ * (see {@link TasksPageRendering}). The latter keeps the time to the first rows short, even for large pages.
  *
  * @author Chris de Vreeze
  */
@@ -36,30 +65,140 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class TaskController {
 
     private final TaskService taskService;
+    private final WorkloadExecutors workloadExecutors;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final TasksPageRendering tasksPageRendering;
+    private final int streamingChunkSize;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(
+            TaskService taskService,
+            WorkloadExecutors workloadExecutors,
+            @Value("${todo.paging.default-page-size:100}") int defaultPageSize,
+            @Value("${todo.paging.max-page-size:1000}") int maxPageSize,
+            @Value("${todo.tasks-page.rendering:buffered}") TasksPageRendering tasksPageRendering,
+            @Value("${todo.tasks-page.streaming-chunk-size:25}") int streamingChunkSize
+    ) {
         this.taskService = taskService;
+        this.workloadExecutors = workloadExecutors;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.tasksPageRendering = tasksPageRendering;
+        this.streamingChunkSize = streamingChunkSize;
     }
 
+    // When streaming, the page is queried in chunks, with 1 query per chunk
+    @StatementBudget(maxStatements = 20)
     @GetMapping(value = "/tasks")
-    public String findAllTasks(
+    public CompletableFuture<String> findAllTasks(
             @RequestParam(name = "closed", required = false) @Nullable Boolean isClosed,
-            Model model
+            @RequestParam(name = "pageToken", required = false) @Nullable String pageToken,
+            @RequestParam(name = "pageSize", required = false) @Nullable Integer pageSize,
+            Model model,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
-        if (isClosed == null) {
-            model.addAttribute("tasks", taskService.findAllTasks());
-            model.addAttribute("title", "Tasks");
-        } else {
-            if (isClosed) {
-                model.addAttribute("tasks", taskService.findAllClosedTasks());
-                model.addAttribute("title", "Closed tasks");
+        if (pageSize != null && pageSize <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive");
+        }
+        PageRequest pageRequest = new PageRequest(
+                Optional.ofNullable(pageToken),
+                Math.min(Optional.ofNullable(pageSize).orElse(defaultPageSize), maxPageSize)
+        );
+        model.addAttribute("title", title(isClosed));
+
+        return workloadExecutors.supplyAsync(Workload.UI, () -> switch (tasksPageRendering) {
+            case BUFFERED -> findTasks(isClosed, pageRequest, model);
+            case STREAMING -> streamTasks(isClosed, pageRequest, model, request, response);
+        });
+    }
+
+    private String findTasks(@Nullable Boolean isClosed, PageRequest pageRequest, Model model) {
+        Page<Task> page = findPage(isClosed, pageRequest);
+        model.addAttribute("tasks", page.items());
+
+        page.nextPageTokenOption().ifPresent(nextPageToken ->
+                model.addAttribute("nextPageUrl", nextPageUrl(isClosed, nextPageToken, pageRequest.pageSize()))
+        );
+
+        return "tasks";
+    }
+
+    /**
+     * Only queries the first chunk of the page up front, so the response starts right away. The other chunks
+     * are queried by the thread rendering the page (outside of this execution lane), under a permit of this lane
+     * taken here, once for the whole rendering, so within the connection quota of this lane. Before each of those
+     * queries the rendered rows are flushed to the browser. If no permit is free, or if the page fits in
+     * one chunk, the page is rendered buffered instead, before anything has been sent to the browser.
+     */
+    private String streamTasks(
+            @Nullable Boolean isClosed,
+            PageRequest pageRequest,
+            Model model,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) {
+        if (pageRequest.pageSize() <= streamingChunkSize) {
+            return findTasks(isClosed, pageRequest, model);
+        }
+        Optional<LanePermit> permitOption = workloadExecutors.tryAcquirePermit(Workload.UI);
+        if (permitOption.isEmpty()) {
+            return findTasks(isClosed, pageRequest, model);
+        }
+        LanePermit permit = permitOption.get();
+        // The permit is closed after fetching the last chunk, and at the latest after rendering (or failing)
+        request.setAttribute(LanePermitInterceptor.LANE_PERMIT_ATTRIBUTE, permit);
+
+        Page<Task> firstChunk = findPage(isClosed, new PageRequest(pageRequest.pageTokenOption(), streamingChunkSize));
+        TaskRows taskRows = new TaskRows(
+                firstChunk,
+                pageRequest.pageSize(),
+                chunkRequest -> findPage(isClosed, chunkRequest),
+                () -> {
+                    try {
+                        response.flushBuffer();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                permit::close,
+                nextPageToken -> nextPageUrl(isClosed, nextPageToken, pageRequest.pageSize())
+        );
+        model.addAttribute("taskRows", taskRows);
+
+        return "tasks";
+    }
+
+    private Page<Task> findPage(@Nullable Boolean isClosed, PageRequest pageRequest) {
+        try {
+            if (isClosed == null) {
+                return taskService.findTasks(pageRequest);
             } else {
-                model.addAttribute("tasks", taskService.findAllOpenTasks());
-                model.addAttribute("title", "Open tasks");
+                if (isClosed) {
+                    return taskService.findClosedTasks(pageRequest);
+                } else {
+                    return taskService.findOpenTasks(pageRequest);
+                }
             }
+        } catch (InvalidPageTokenException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token", e);
         }
+    }
 
-        return "tasks";
+    private static String title(@Nullable Boolean isClosed) {
+        if (isClosed == null) {
+            return "Tasks";
+        } else {
+            return isClosed ? "Closed tasks" : "Open tasks";
+        }
+    }
+
+    private static String nextPageUrl(@Nullable Boolean isClosed, String nextPageToken, int pageSize) {
+        return UriComponentsBuilder.fromPath("/tasks")
+                .queryParamIfPresent("closed", Optional.ofNullable(isClosed))
+                .queryParam("pageToken", nextPageToken)
+                .queryParam("pageSize", pageSize)
+                .toUriString();
     }
 
     @GetMapping(value = "/newTask")
@@ -70,31 +209,65 @@ public class TaskController {
     }
 
     @PostMapping(value = "/newTask")
-    public String addTask(@ModelAttribute TaskFormData taskFormData) {
+    public CompletableFuture<String> addTask(@ModelAttribute TaskFormData taskFormData) {
         Task task = taskFormData.toModel().withoutId();
 
-        taskService.addTask(task);
-
-        return "redirect:/tasks";
+        return workloadExecutors.supplyAsync(Workload.UI, () -> {
+            taskService.addTask(task);
+            return "redirect:/tasks";
+        });
     }
 
     @GetMapping(value = "/updateTask")
-    public String getFormToUpdateTask(@RequestParam(name = "id") Long id, Model model) {
-        Task task = taskService.findTask(id).orElseThrow();
+    public CompletableFuture<String> getFormToUpdateTask(@RequestParam(name = "id") Long id, Model model) {
+        return workloadExecutors.supplyAsync(Workload.UI, () -> {
+            Task task = taskService.findTask(id).orElseThrow();
 
-        TaskFormData formData = TaskFormData.fromModel(task);
+            TaskFormData formData = TaskFormData.fromModel(task);
 
-        model.addAttribute("task", formData);
+            model.addAttribute("task", formData);
 
-        return "updateTask";
+            return "updateTask";
+        });
     }
 
+    // The form holds the version of the task as read. If the task has been updated since, the form is shown
+    // again, with the current task and status 409 (Conflict), instead of overwriting the other update.
+    // If the task has been deleted since, the tasks page is shown, with a message.
+
     @PostMapping(value = "/updateTask")
-    public String updateTask(@ModelAttribute TaskFormData taskFormData) {
+    public CompletableFuture<ModelAndView> updateTask(
+            @ModelAttribute TaskFormData taskFormData,
+            RedirectAttributes redirectAttributes
+    ) {
         Task task = taskFormData.toModel();
+        long id = task.idOption().orElseThrow();
+
+        return workloadExecutors.supplyAsync(Workload.UI, () -> {
+            try {
+                taskService.updateTask(task);
+                return new ModelAndView("redirect:/tasks");
+            } catch (TaskVersionConflictException e) {
+                Optional<Task> currentTaskOption = taskService.findTask(id);
+                if (currentTaskOption.isEmpty()) {
+                    return redirectToTasksOfDeletedTask(id, redirectAttributes);
+                }
 
-        taskService.updateTask(task);
+                ModelAndView modelAndView = new ModelAndView("updateTask", HttpStatus.CONFLICT);
+                modelAndView.addObject("task", TaskFormData.fromModel(currentTaskOption.get()));
+                modelAndView.addObject("versionConflict", true);
+                return modelAndView;
+            } catch (TaskNotFoundException e) {
+                return redirectToTasksOfDeletedTask(id, redirectAttributes);
+            }
+        });
+    }
 
-        return "redirect:/tasks";
+    private static ModelAndView redirectToTasksOfDeletedTask(long id, RedirectAttributes redirectAttributes) {
+        redirectAttributes.addFlashAttribute(
+                "message",
+                String.format("Task %d has been deleted by someone else in the meantime, so your changes have not been saved.", id)
+        );
+        return new ModelAndView("redirect:/tasks");
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.controller;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.Task;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The rows of one page of tasks, fetched lazily in chunks while they are iterated over, for
+ * {@link TasksPageRendering#STREAMING streaming rendering} of the tasks page. Only one chunk is held in memory
+ * at a time. Before each next chunk is fetched, the "before fetch" callback is run, which is used to flush the
+ * rows rendered so far to the browser. Once no more chunks will be fetched, because all rows have been iterated
+ * over or because fetching failed, the "after last fetch" callback is run.
+ * <p>
+ * If fetching a chunk fails after rows have been flushed, the response has already been committed with status 200.
+ * The exception is then rethrown, so that rendering fails and the servlet container closes the connection without
+ * completing the response, instead of sending a truncated page as if it were complete.
+ * <p>
+ * The next page URL, if any, is only known after all rows have been iterated over, so it is rendered below
+ * the table. Instances can only be iterated over once, and are not thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class TaskRows implements Iterable<Task> {
+
+    private final Page<Task> firstChunk;
+    private final int pageSize;
+    private final Function<PageRequest, Page<Task>> fetchChunk;
+    private final Runnable beforeFetch;
+    private final Runnable afterLastFetch;
+    private final Function<String, String> toNextPageUrl;
+
+    private boolean iterationStarted;
+    private boolean iterationEnded;
+    private @Nullable String nextPageToken;
+
+    /**
+     * Creates the rows of a page of the given size, of which the first chunk has already been fetched.
+     * The next chunks, no larger than the first one, are fetched with the given function.
+     */
+    public TaskRows(
+            Page<Task> firstChunk,
+            int pageSize,
+            Function<PageRequest, Page<Task>> fetchChunk,
+            Runnable beforeFetch,
+            Runnable afterLastFetch,
+            Function<String, String> toNextPageUrl
+    ) {
+        Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+        this.firstChunk = firstChunk;
+        this.pageSize = pageSize;
+        this.fetchChunk = fetchChunk;
+        this.beforeFetch = beforeFetch;
+        this.afterLastFetch = afterLastFetch;
+        this.toNextPageUrl = toNextPageUrl;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        Preconditions.checkState(!iterationStarted, "The task rows can only be iterated over once");
+        iterationStarted = true;
+        return new ChunkIterator();
+    }
+
+    /**
+     * Returns the URL of the next page, or null if there is no next page. Must not be called before all rows
+     * have been iterated over.
+     */
+    public @Nullable String getNextPageUrl() {
+        Preconditions.checkState(iterationEnded, "The next page is only known after iterating over all rows");
+        return Optional.ofNullable(nextPageToken).map(toNextPageUrl).orElse(null);
+    }
+
+    private final class ChunkIterator implements Iterator<Task> {
+
+        private final int chunkSize = Math.max(firstChunk.items().size(), 1);
+        private Page<Task> chunk = firstChunk;
+        private int indexInChunk = 0;
+        private int rowCount = 0;
+
+        @Override
+        public boolean hasNext() {
+            if (indexInChunk == chunk.items().size() && chunk.hasNextPage() && rowCount < pageSize) {
+                try {
+                    beforeFetch.run();
+                    PageRequest chunkRequest = PageRequest.nextPage(
+                            chunk.nextPageTokenOption().orElseThrow(),
+                            Math.min(chunkSize, pageSize - rowCount)
+                    );
+                    chunk = fetchChunk.apply(chunkRequest);
+                    indexInChunk = 0;
+                } catch (RuntimeException e) {
+                    afterLastFetch.run();
+                    throw e;
+                }
+            }
+
+            boolean hasNext = indexInChunk < chunk.items().size();
+            if (!hasNext && !iterationEnded) {
+                iterationEnded = true;
+                nextPageToken = chunk.nextPageTokenOption().orElse(null);
+                afterLastFetch.run();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            rowCount += 1;
+            return chunk.items().get(indexInChunk++);
+        }
+    }
+}
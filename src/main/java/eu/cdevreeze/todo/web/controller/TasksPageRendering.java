@@ -0,0 +1,36 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.controller;
+
+/**
+ * How the tasks page is rendered by the TaskController. It is configured with property "todo.tasks-page.rendering".
+ *
+ * @author Chris de Vreeze
+ */
+public enum TasksPageRendering {
+
+    /**
+     * The page of tasks is queried in full before the HTML is rendered.
+     */
+    BUFFERED,
+
+    /**
+     * The page of tasks is queried in chunks while the HTML table is rendered, and the rows rendered so far are
+     * sent to the browser before each next chunk is queried. See {@link TaskRows}.
+     */
+    STREAMING
+}
@@ -16,94 +16,467 @@
 
 package eu.cdevreeze.todo.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.Preconditions;
+import eu.cdevreeze.todo.exception.InvalidPageTokenException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
 import eu.cdevreeze.todo.model.Address;
 import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.SearchHit;
 import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
 import eu.cdevreeze.todo.service.AddressService;
 import eu.cdevreeze.todo.service.AppointmentService;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.DataVersionService.DataSet;
+import eu.cdevreeze.todo.service.SearchService;
 import eu.cdevreeze.todo.service.TaskService;
+import eu.cdevreeze.todo.web.messageconverter.MyHttpMessageConvertersConfiguration;
+import eu.cdevreeze.todo.web.statementbudget.StatementBudget;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
 import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * REST Web MVC controller for tasks and appointments.
+ * <p>
+ * The GET endpoints for lists of tasks, addresses and appointments return JSON by default, but return
+ * Smile or CBOR instead if the client asks for it in the "Accept" request header (in spite of the
+ * ".json" suffix in their URLs).
+ * <p>
+ * Requests needing the database are handled asynchronously, in the execution lane of their {@link Workload}:
+ * {@link Workload#EXPORT} for streaming exports and the unbounded list of appointments, and {@link Workload#API}
+ * for all other requests. If that lane is full, the request is rejected at once with status 503.
  *
  * @author Chris de Vreeze
  */
 @RestController
 public class TodoRestController {
 
+    // Strong ETag holding a task version, such as "3"
+    private static final Pattern TASK_ETAG_PATTERN = Pattern.compile("\"(\\d{1,18})\"");
+
     private final TaskService taskService;
     private final AddressService addressService;
     private final AppointmentService appointmentService;
+    private final SearchService searchService;
+    private final DataVersionService dataVersionService;
+    private final WorkloadExecutors workloadExecutors;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int defaultSearchLimit;
+    private final int maxSearchLimit;
 
     public TodoRestController(
             TaskService taskService,
             AddressService addressService,
-            AppointmentService appointmentService
+            AppointmentService appointmentService,
+            SearchService searchService,
+            DataVersionService dataVersionService,
+            WorkloadExecutors workloadExecutors,
+            ObjectMapper objectMapper,
+            @Value("${todo.paging.default-page-size:100}") int defaultPageSize,
+            @Value("${todo.paging.max-page-size:1000}") int maxPageSize,
+            @Value("${todo.search.default-limit:20}") int defaultSearchLimit,
+            @Value("${todo.search.max-limit:100}") int maxSearchLimit
     ) {
         this.taskService = taskService;
         this.addressService = addressService;
         this.appointmentService = appointmentService;
+        this.searchService = searchService;
+        this.dataVersionService = dataVersionService;
+        this.workloadExecutors = workloadExecutors;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.defaultSearchLimit = defaultSearchLimit;
+        this.maxSearchLimit = maxSearchLimit;
     }
 
-    @GetMapping(value = "/tasks.json", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Task> findAllTasks(
-            @RequestParam(name = "closed", required = false) @Nullable Boolean isClosed
+    /**
+     * Returns one page of tasks. If there is a next page, its URL is returned in a "Link" response header
+     * with relation type "next" (see RFC 8288), so the response body remains a plain JSON array of tasks.
+     * An invalid page token or a page size that is not positive results in status 400 (Bad Request).
+     */
+    @GetMapping(value = "/tasks.json", produces = {MediaType.APPLICATION_JSON_VALUE, MyHttpMessageConvertersConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<List<Task>>> findAllTasks(
+            @RequestParam(name = "closed", required = false) @Nullable Boolean isClosed,
+            @RequestParam(name = "pageToken", required = false) @Nullable String pageToken,
+            @RequestParam(name = "pageSize", required = false) @Nullable Integer pageSize,
+            WebRequest webRequest
     ) {
-        if (isClosed == null) {
-            return taskService.findAllTasks();
-        } else {
-            if (isClosed) {
-                return taskService.findAllClosedTasks();
-            } else {
-                return taskService.findAllOpenTasks();
-            }
+        if (pageSize != null && pageSize <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive");
+        }
+        if (isNotModified(webRequest, DataSet.TASKS)) {
+            return CompletableFuture.completedFuture(notModified());
         }
+
+        PageRequest pageRequest = new PageRequest(
+                Optional.ofNullable(pageToken),
+                Math.min(Optional.ofNullable(pageSize).orElse(defaultPageSize), maxPageSize)
+        );
+        // The current request is only known in the request thread
+        String requestUri = ServletUriComponentsBuilder.fromCurrentRequestUri().toUriString();
+
+        return workloadExecutors.supplyAsync(Workload.API, () -> {
+            Page<Task> page;
+            try {
+                if (isClosed == null) {
+                    page = taskService.findTasks(pageRequest);
+                } else {
+                    if (isClosed) {
+                        page = taskService.findClosedTasks(pageRequest);
+                    } else {
+                        page = taskService.findOpenTasks(pageRequest);
+                    }
+                }
+            } catch (InvalidPageTokenException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token", e);
+            }
+
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+            page.nextPageTokenOption().ifPresent(nextPageToken ->
+                    responseBuilder.header(
+                            HttpHeaders.LINK,
+                            String.format(
+                                    "<%s>; rel=\"next\"",
+                                    nextPageUrl(requestUri, isClosed, nextPageToken, pageRequest.pageSize())
+                            )
+                    )
+            );
+            return responseBuilder.body(page.items());
+        });
+    }
+
+    /**
+     * Exports all tasks as newline-delimited JSON. Each task is written to the response as soon as
+     * it has been read from the database, so memory usage does not depend on the number of tasks.
+     */
+    @GetMapping(value = "/tasks.ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllTasks() {
+        return ndjsonResponseBody(taskService::forEachTask);
     }
 
     @PostMapping(value = "/tasks.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Task addTask(@RequestBody Task task) {
-        return taskService.addTask(task);
+    public CompletableFuture<Task> addTask(@RequestBody Task task) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> taskService.addTask(task));
+    }
+
+    /**
+     * Returns the task with the given ID, with its version as (strong) ETag, such as "3". That ETag can be passed
+     * in the "If-Match" request header when updating the task (with a PUT request to the same URL).
+     */
+    @GetMapping(value = "/tasks/{id}.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Task>> findTask(@PathVariable("id") long id) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> {
+            Task task = taskService.findTask(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task not found"));
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(task.versionOption().orElseThrow()))
+                    .body(task);
+        });
+    }
+
+    /**
+     * Updates the task with the given ID. The version that has been read is passed as ETag (such as "3") in an
+     * "If-Match" request header, which then takes precedence over the version in the body, or else in the body.
+     * The task is updated with 1 statement, without reading it first. If it has been updated in the meantime,
+     * the response status is 412 (Precondition Failed) for an "If-Match" header, and 409 (Conflict) otherwise.
+     * <p>
+     * Header "If-Match: *" updates the task unconditionally, whatever its current version. Other "If-Match" headers
+     * never match (so the response status is 412) unless they hold exactly 1 strong task version ETag, because
+     * "If-Match" uses strong comparison. If the task does not exist, the response status is 404 (Not Found),
+     * or 412 for header "If-Match: *". The response body is the updated task, whose new version is also returned
+     * as ETag.
+     */
+    @PutMapping(value = "/tasks/{id}.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<Task>> updateTask(
+            @PathVariable("id") long id,
+            @RequestBody Task task,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) @Nullable String ifMatch
+    ) {
+        if (task.idOption().isPresent() && task.idOption().getAsLong() != id) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Task ID in body differs from task ID in URL");
+        }
+        boolean matchAnyVersion = ifMatch != null && ifMatch.strip().equals("*");
+        Optional<Long> ifMatchVersionOption =
+                Optional.ofNullable(ifMatch).filter(v -> !matchAnyVersion).map(TodoRestController::parseTaskETag);
+        Task taskWithId = task.withId(id);
+        Task taskToUpdate = ifMatchVersionOption.map(taskWithId::withVersion).orElse(taskWithId);
+        if (!matchAnyVersion && taskToUpdate.versionOption().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED, "Missing task version");
+        }
+
+        return workloadExecutors.supplyAsync(Workload.API, () -> {
+            try {
+                Task updatedTask = matchAnyVersion
+                        ? taskService.updateTaskUnconditionally(taskToUpdate)
+                        : taskService.updateTask(taskToUpdate);
+                return ResponseEntity.ok()
+                        .eTag(String.valueOf(updatedTask.versionOption().orElseThrow()))
+                        .body(updatedTask);
+            } catch (TaskVersionConflictException e) {
+                HttpStatus status = (ifMatch != null) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+                throw new ResponseStatusException(status, "Task has been updated in the meantime", e);
+            } catch (TaskNotFoundException e) {
+                HttpStatus status = matchAnyVersion ? HttpStatus.PRECONDITION_FAILED : HttpStatus.NOT_FOUND;
+                throw new ResponseStatusException(status, "Task not found", e);
+            }
+        });
+    }
+
+    /**
+     * Adds a batch of tasks in one transaction, returning one result per task, in the same order.
+     * Large batches take about 1 statement per 25 tasks (sequence calls, JDBC batches and name lookups).
+     */
+    @StatementBudget(maxStatements = 1000)
+    @PostMapping(value = "/tasks/batch.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<List<TaskAdditionResult>> addTasks(@RequestBody List<Task> tasks) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> taskService.addTasks(tasks));
     }
 
     @DeleteMapping(value = "/tasks.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Long deleteTask(@RequestBody Long id) {
-        taskService.deleteTask(id);
-        return id;
+    public CompletableFuture<Long> deleteTask(@RequestBody Long id) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> {
+            taskService.deleteTask(id);
+            return id;
+        });
+    }
+
+    /**
+     * Deletes a batch of tasks by ID in one transaction, returning the number of deleted tasks.
+     * Unknown IDs are ignored. The IDs are deleted in chunks, with 2 statements per chunk.
+     */
+    @StatementBudget(maxStatements = 100)
+    @DeleteMapping(value = "/tasks/batch.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<Long> deleteTasks(@RequestBody List<Long> ids) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> (long) taskService.deleteTasks(ids).size());
+    }
+
+    /**
+     * Deletes all tasks matching the filter in the query parameters in one statement, returning the number of deleted
+     * tasks. At least one of the filter parameters is required.
+     */
+    @DeleteMapping(value = "/tasks/matching.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<Long> deleteTasksMatching(
+            @RequestParam(name = "closed", required = false) @Nullable Boolean isClosed,
+            @RequestParam(name = "targetEndBefore", required = false) @Nullable Instant targetEndBefore
+    ) {
+        if (isClosed == null && targetEndBefore == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing filter parameter (closed or targetEndBefore)");
+        }
+        TaskFilter filter = new TaskFilter(Optional.ofNullable(isClosed), Optional.ofNullable(targetEndBefore));
+        return workloadExecutors.supplyAsync(Workload.API, () -> taskService.deleteTasksMatching(filter));
+    }
+
+    @GetMapping(value = "/addresses.json", produces = {MediaType.APPLICATION_JSON_VALUE, MyHttpMessageConvertersConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<List<Address>>> findAllAddresses(WebRequest webRequest) {
+        if (isNotModified(webRequest, DataSet.ADDRESSES)) {
+            return CompletableFuture.completedFuture(notModified());
+        }
+        return workloadExecutors.supplyAsync(Workload.API, () -> ResponseEntity.ok(addressService.findAllAddresses()));
     }
 
-    @GetMapping(value = "/addresses.json", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Address> findAllAddresses() {
-        return addressService.findAllAddresses();
+    @GetMapping(value = "/addresses.ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllAddresses() {
+        return ndjsonResponseBody(addressService::forEachAddress);
     }
 
     @PostMapping(value = "/addresses.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Address addAddress(@RequestBody Address address) {
-        return addressService.addAddress(address);
+    public CompletableFuture<Address> addAddress(@RequestBody Address address) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> addressService.addAddress(address));
     }
 
-    @GetMapping(value = "/appointments.json", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<Appointment> findAllAppointments(
+    @GetMapping(value = "/appointments.json", produces = {MediaType.APPLICATION_JSON_VALUE, MyHttpMessageConvertersConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<List<Appointment>>> findAllAppointments(
             @RequestParam(name = "start", required = false) @Nullable Instant start,
-            @RequestParam(name = "end", required = false) @Nullable Instant end
+            @RequestParam(name = "end", required = false) @Nullable Instant end,
+            @RequestParam(name = "overlapping", defaultValue = "false") boolean overlapping,
+            WebRequest webRequest
     ) {
+        // Appointments contain their addresses
+        if (isNotModified(webRequest, DataSet.APPOINTMENTS, DataSet.ADDRESSES)) {
+            return CompletableFuture.completedFuture(notModified());
+        }
+
         if (start == null) {
             Preconditions.checkArgument(end == null);
-            return appointmentService.findAllAppointments();
+            // Without time range, the list of appointments is unbounded, so it is treated like an export
+            return workloadExecutors.supplyAsync(
+                    Workload.EXPORT,
+                    () -> ResponseEntity.ok(appointmentService.findAllAppointments())
+            );
+        } else if (overlapping) {
+            Preconditions.checkArgument(end != null);
+            return workloadExecutors.supplyAsync(
+                    Workload.API,
+                    () -> ResponseEntity.ok(appointmentService.findAppointmentsOverlapping(start, end))
+            );
         } else {
             Preconditions.checkArgument(end != null);
-            return appointmentService.findAppointmentsBetween(start, end);
+            return workloadExecutors.supplyAsync(
+                    Workload.API,
+                    () -> ResponseEntity.ok(appointmentService.findAppointmentsBetween(start, end))
+            );
         }
     }
 
+    @GetMapping(value = "/appointments.ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllAppointments() {
+        return ndjsonResponseBody(appointmentService::forEachAppointment);
+    }
+
     @PostMapping(value = "/appointments.json", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Appointment addAppointment(@RequestBody Appointment.NewAppointment appointment) {
-        return appointmentService.addAppointment(appointment);
+    public CompletableFuture<Appointment> addAppointment(@RequestBody Appointment.NewAppointment appointment) {
+        return workloadExecutors.supplyAsync(Workload.API, () -> appointmentService.addAppointment(appointment));
+    }
+
+    /**
+     * Full-text search across tasks, appointments and addresses, returning the best hits first. The search
+     * is ranked and limited in the database, so clients no longer need to download all data to filter it.
+     */
+    @GetMapping(value = "/search.json", produces = {MediaType.APPLICATION_JSON_VALUE, MyHttpMessageConvertersConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<List<SearchHit>>> search(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", required = false) @Nullable Integer limit,
+            WebRequest webRequest
+    ) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        if (isNotModified(webRequest, DataSet.TASKS, DataSet.APPOINTMENTS, DataSet.ADDRESSES)) {
+            return CompletableFuture.completedFuture(notModified());
+        }
+
+        int searchLimit = Math.min(Optional.ofNullable(limit).orElse(defaultSearchLimit), maxSearchLimit);
+        return workloadExecutors.supplyAsync(
+                Workload.API,
+                () -> ResponseEntity.ok(searchService.search(query, searchLimit))
+        );
+    }
+
+    /**
+     * Checks the "If-None-Match" request header against a weak ETag made up of the current versions of the given
+     * data sets. If they match, the response status is set to 304 (Not Modified), and true is returned, so the caller
+     * should return immediately, without querying or serializing anything. Otherwise, the ETag response header is set.
+     * <p>
+     * The ETag is weak, because the response body may be gzipped or not, and because Tomcat does not compress
+     * responses with a strong ETag. It ends with the negotiated media type (JSON, Smile or CBOR), so it still differs
+     * between representations. The "Vary" response header tells HTTP caches to keep the representations for different
+     * "Accept" request headers apart.
+     */
+    private boolean isNotModified(WebRequest webRequest, DataSet... dataSets) {
+        if (webRequest instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse() != null) {
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        String etag = Stream.concat(
+                Arrays.stream(dataSets).map(dataVersionService::getVersion),
+                Stream.of(negotiatedMediaType(webRequest).getSubtype())
+        ).collect(Collectors.joining("_", "W/\"", "\""));
+        return webRequest.checkNotModified(etag);
+    }
+
+    /**
+     * Returns the media type among the ones produced by the handler method that best matches the "Accept" request
+     * header. This is the media type that the response body is written in, unless none of them is acceptable.
+     */
+    private static MediaType negotiatedMediaType(WebRequest webRequest) {
+        @SuppressWarnings("unchecked")
+        Set<MediaType> producibleMediaTypes = (Set<MediaType>) webRequest.getAttribute(
+                HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST
+        );
+        Preconditions.checkState(producibleMediaTypes != null && !producibleMediaTypes.isEmpty());
+
+        String[] acceptHeaderValues = Optional.ofNullable(webRequest.getHeaderValues(HttpHeaders.ACCEPT)).orElse(new String[0]);
+        List<MediaType> acceptedMediaTypes = new ArrayList<>(MediaType.parseMediaTypes(Arrays.asList(acceptHeaderValues)));
+        if (acceptedMediaTypes.isEmpty()) {
+            acceptedMediaTypes.add(MediaType.ALL);
+        }
+        // Same ordering as the content negotiation of Spring: by quality, and then by specificity (stable sort)
+        MimeTypeUtils.sortBySpecificity(acceptedMediaTypes);
+
+        return acceptedMediaTypes.stream()
+                .flatMap(acceptedMediaType -> producibleMediaTypes.stream().filter(acceptedMediaType::isCompatibleWith))
+                .findFirst()
+                .orElse(producibleMediaTypes.iterator().next());
+    }
+
+    private static long parseTaskETag(String ifMatch) {
+        // Weak ETags and other ETags than 1 task version never match, using the strong comparison of If-Match
+        Matcher matcher = TASK_ETAG_PATTERN.matcher(ifMatch.strip());
+        if (!matcher.matches()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match header does not match the task version");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static <T> ResponseEntity<T> notModified() {
+        // The ETag and Vary response headers have already been set
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+    }
+
+    private static String nextPageUrl(String requestUri, @Nullable Boolean isClosed, String nextPageToken, int pageSize) {
+        return UriComponentsBuilder.fromUriString(requestUri)
+                .queryParamIfPresent("closed", Optional.ofNullable(isClosed))
+                .queryParam("pageToken", nextPageToken)
+                .queryParam("pageSize", pageSize)
+                .toUriString();
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjsonResponseBody(Consumer<Consumer<Object>> forEach) {
+        ObjectWriter objectWriter = objectMapper.writer();
+        StreamingResponseBody responseBody = outputStream -> {
+            try {
+                forEach.accept(item -> {
+                    try {
+                        outputStream.write(objectWriter.writeValueAsBytes(item));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
     }
 }
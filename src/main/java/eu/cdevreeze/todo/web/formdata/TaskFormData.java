@@ -40,6 +40,7 @@ public class TaskFormData {
     private @Nullable LocalDateTime targetEnd;
     private @Nullable String extraInformation;
     private boolean closed;
+    private @Nullable Long version;
 
     public @Nullable Long getId() {
         return id;
@@ -108,6 +109,14 @@ public class TaskFormData {
         this.closed = closed;
     }
 
+    public @Nullable Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(@Nullable Long version) {
+        this.version = version;
+    }
+
     public Task toModel() {
         return new Task(
                 Optional.ofNullable(this.getId()).stream().mapToLong(id -> id).findFirst(),
@@ -116,7 +125,8 @@ public class TaskFormData {
                 Optional.ofNullable(this.getTargetEnd())
                         .map(dt -> dt.toInstant(ZoneOffset.UTC).with(ChronoField.NANO_OF_SECOND, 0)),
                 Optional.ofNullable(this.getExtraInformation()).filter(v -> !v.isBlank()),
-                this.isClosed()
+                this.isClosed(),
+                Optional.ofNullable(this.getVersion()).stream().mapToLong(version -> version).findFirst()
         );
     }
 
@@ -132,6 +142,7 @@ public class TaskFormData {
         );
         formData.setExtraInformation(task.extraInformationOption().orElse(null));
         formData.setClosed(task.closed());
+        formData.setVersion(task.versionOption().stream().boxed().findFirst().orElse(null));
         return formData;
     }
 }
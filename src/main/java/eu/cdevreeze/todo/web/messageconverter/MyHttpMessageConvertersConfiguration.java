@@ -16,7 +16,10 @@
 
 package eu.cdevreeze.todo.web.messageconverter;
 
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -26,36 +29,57 @@ import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Configuration class containing a {@link HttpMessageConverters} bean.
+ * Configuration class containing a {@link HttpMessageConverters} bean, and the {@link JsonMapper} bean
+ * used by it. The latter is also used for JSON output that does not go through the message converters,
+ * such as streaming exports.
+ * <p>
+ * Besides JSON, the binary Smile and CBOR formats are supported, for clients asking for them in the
+ * "Accept" header. They are more compact and faster to parse than JSON. Their mappers use the same
+ * Jackson modules as the JSON mapper, so all formats have the same data model.
  *
  * @author Chris de Vreeze
  */
 @Configuration(proxyBeanMethods = false)
 public class MyHttpMessageConvertersConfiguration {
 
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     // See https://github.com/FasterXML/jackson-datatypes-collections
     // Also see https://www.baeldung.com/java-instant-jackson-format-object-mapper
 
     @Bean
-    public HttpMessageConverters customConverters() {
+    public JsonMapper jsonMapper() {
+        return addModules(JsonMapper.builder()).build();
+    }
+
+    @Bean
+    public HttpMessageConverters customConverters(JsonMapper jsonMapper) {
+        // The JSON converter comes first, so JSON is returned if the client accepts any media type
+        HttpMessageConverter<?> jsonConverter = new MappingJackson2HttpMessageConverter(jsonMapper);
+        HttpMessageConverter<?> smileConverter =
+                new MappingJackson2SmileHttpMessageConverter(addModules(SmileMapper.builder()).build());
+        HttpMessageConverter<?> cborConverter =
+                new MappingJackson2CborHttpMessageConverter(addModules(CBORMapper.builder()).build());
+        return new HttpMessageConverters(jsonConverter, smileConverter, cborConverter);
+    }
+
+    private static <B extends MapperBuilder<?, B>> B addModules(B mapperBuilder) {
         JavaTimeModule javaTimeModule = new JavaTimeModule();
         javaTimeModule.addSerializer(Instant.class, new CustomInstantSerializer());
         javaTimeModule.addDeserializer(Instant.class, new CustomInstantDeserializer());
 
-        HttpMessageConverter<?> converter = new MappingJackson2HttpMessageConverter(
-                JsonMapper.builder()
-                        .addModule(new GuavaModule())
-                        .addModule(new Jdk8Module())
-                        .addModule(javaTimeModule)
-                        .build()
-        );
-        return new HttpMessageConverters(converter);
+        return mapperBuilder
+                .addModule(new GuavaModule())
+                .addModule(new Jdk8Module())
+                .addModule(javaTimeModule);
     }
 
     private static final class CustomInstantSerializer extends InstantSerializer {
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.statementbudget;
+
+import java.lang.annotation.*;
+
+/**
+ * Statement budget of a request handler method (or of all handler methods of a controller class), overriding the
+ * configured default budget. Only handlers that legitimately execute a number of statements proportional to the
+ * size of the request (such as batches processed in chunks) should need a larger budget.
+ *
+ * @author Chris de Vreeze
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StatementBudget {
+
+    /**
+     * The maximum number of SQL statements per request.
+     */
+    int maxStatements();
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.statementbudget;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.todo.jdbc.StatementCounter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Optional;
+
+/**
+ * Interceptor binding a {@link StatementCounter} to each request handled by a controller method, checking the number
+ * of SQL statements executed on behalf of the request against its statement budget. That budget is taken from the
+ * {@link StatementBudget} annotation of the handler method or its controller class, if any, and is otherwise the
+ * configured default.
+ * <p>
+ * The counter is kept as request attribute {@link #STATEMENT_COUNTER_ATTRIBUTE}, so that it survives asynchronous
+ * processing. Statements executed in the execution lanes are counted as well, since the lanes propagate the counter
+ * of the submitting thread. In production, budget violations are logged as warnings. In tests, they should fail
+ * (property "todo.sql.statement-budget.fail-on-exceeded").
+ *
+ * @author Chris de Vreeze
+ */
+@Component
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String STATEMENT_COUNTER_ATTRIBUTE = StatementBudgetInterceptor.class.getName() + ".statementCounter";
+
+    private final int defaultMaxStatements;
+    private final boolean failOnExceeded;
+
+    public StatementBudgetInterceptor(
+            @Value("${todo.sql.statement-budget.default-max-statements:10}") int defaultMaxStatements,
+            @Value("${todo.sql.statement-budget.fail-on-exceeded:false}") boolean failOnExceeded
+    ) {
+        Preconditions.checkArgument(defaultMaxStatements >= 0, "The statement budget must not be negative");
+        this.defaultMaxStatements = defaultMaxStatements;
+        this.failOnExceeded = failOnExceeded;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            // After asynchronous processing, the request is dispatched again, and keeps its counter
+            StatementCounter counter = Optional.ofNullable(request.getAttribute(STATEMENT_COUNTER_ATTRIBUTE))
+                    .map(StatementCounter.class::cast)
+                    .orElseGet(() -> newStatementCounter(request, handlerMethod));
+            request.setAttribute(STATEMENT_COUNTER_ATTRIBUTE, counter);
+            StatementCounter.bind(counter);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.bind(null);
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            @Nullable Exception ex
+    ) {
+        StatementCounter.bind(null);
+    }
+
+    /**
+     * Returns the statement budget of the given handler method.
+     */
+    public int maxStatements(HandlerMethod handlerMethod) {
+        return Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), StatementBudget.class))
+                .or(() -> Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), StatementBudget.class)))
+                .map(StatementBudget::maxStatements)
+                .orElse(defaultMaxStatements);
+    }
+
+    private StatementCounter newStatementCounter(HttpServletRequest request, HandlerMethod handlerMethod) {
+        return new StatementCounter(
+                String.format("Request %s %s", request.getMethod(), request.getRequestURI()),
+                maxStatements(handlerMethod),
+                failOnExceeded
+        );
+    }
+}
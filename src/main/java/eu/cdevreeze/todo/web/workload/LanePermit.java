@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cdevreeze.todo.web.workload;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Permit of an execution lane, held by a thread outside of that lane while it does work of the workload class
+ * of the lane (see {@link WorkloadExecutors#tryAcquirePermit(Workload)}). Closing the permit gives it back to the
+ * lane. It may be closed more than once, and from any thread.
+ *
+ * @author Chris de Vreeze
+ */
+public final class LanePermit implements AutoCloseable {
+
+    private final Semaphore permits;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    LanePermit(Semaphore permits) {
+        this.permits = permits;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cdevreeze.todo.web.workload;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Optional;
+
+/**
+ * Interceptor closing the {@link LanePermit} kept as request attribute {@link #LANE_PERMIT_ATTRIBUTE}, if any, once
+ * the request has been handled completely, including the rendering of the view after asynchronous processing.
+ * It is the safety net for permits held while rendering, in case rendering ends before the permit has been closed.
+ *
+ * @author Chris de Vreeze
+ */
+public class LanePermitInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String LANE_PERMIT_ATTRIBUTE = LanePermitInterceptor.class.getName() + ".lanePermit";
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            @Nullable Exception ex
+    ) {
+        // Not called after the first dispatch of an asynchronous request, but only after the dispatch that renders
+        Optional.ofNullable(request.getAttribute(LANE_PERMIT_ATTRIBUTE))
+                .map(LanePermit.class::cast)
+                .ifPresent(LanePermit::close);
+    }
+}
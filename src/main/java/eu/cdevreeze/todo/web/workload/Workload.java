@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.workload;
+
+/**
+ * Workload class of a request, determining the execution lane in which the request is handled.
+ *
+ * @author Chris de Vreeze
+ */
+public enum Workload {
+
+    /**
+     * Thymeleaf pages.
+     */
+    UI,
+    /**
+     * JSON API requests returning small results, such as single tasks or pages of tasks.
+     */
+    API,
+    /**
+     * Requests returning potentially large lists, such as streaming (NDJSON) exports and unbounded lists
+     * of appointments.
+     */
+    EXPORT
+}
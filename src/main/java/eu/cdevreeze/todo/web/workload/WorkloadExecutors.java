@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.workload;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.todo.jdbc.StatementCounter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executors, one per {@link Workload}, acting as bulkheads between workload classes. Each executor runs
+ * at most a fixed number of tasks at the same time, and lets a bounded number of tasks wait. Tasks submitted while
+ * the lane is full are rejected at once, with a {@link TaskRejectedException}, instead of piling up latency.
+ * <p>
+ * Each running task runs at most one transaction at a time, so the number of threads of a workload class is also
+ * its quota of database connections. The sum of these quotas should stay below the size of the connection pool, so
+ * that a heavy export can never take the connections needed by the UI.
+ * <p>
+ * In the virtual-thread execution mode ("spring.threads.virtual.enabled"), each task gets its own virtual thread
+ * instead of a pooled platform thread. The number of threads is then the number of tasks running at the same time,
+ * and waiting tasks wait on their own virtual thread, for a permit of the lane, instead of in a queue.
+ * <p>
+ * In both execution modes, each running task holds one of the permits of its lane, one per lane thread. A thread
+ * outside of the lane can take a permit as well (see {@link #tryAcquirePermit(Workload)}), for work of the lane's
+ * workload class that cannot run in the lane itself, such as querying while rendering a view. The lane then runs
+ * one task less at the same time, so the quota of database connections of the lane still holds.
+ *
+ * @author Chris de Vreeze
+ */
+@Component
+public class WorkloadExecutors implements DisposableBean {
+
+    private final ImmutableMap<Workload, Semaphore> permits;
+    private final ImmutableMap<Workload, AsyncTaskExecutor> executors;
+
+    public WorkloadExecutors(
+            @Value("${todo.workload.ui.threads:4}") int uiThreads,
+            @Value("${todo.workload.ui.queue-capacity:50}") int uiQueueCapacity,
+            @Value("${todo.workload.api.threads:10}") int apiThreads,
+            @Value("${todo.workload.api.queue-capacity:100}") int apiQueueCapacity,
+            @Value("${todo.workload.export.threads:4}") int exportThreads,
+            @Value("${todo.workload.export.queue-capacity:10}") int exportQueueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.permits = ImmutableMap.of(
+                Workload.UI, newPermits(uiThreads),
+                Workload.API, newPermits(apiThreads),
+                Workload.EXPORT, newPermits(exportThreads)
+        );
+        this.executors = ImmutableMap.of(
+                Workload.UI, newExecutor(Workload.UI, uiThreads, uiQueueCapacity, virtualThreads),
+                Workload.API, newExecutor(Workload.API, apiThreads, apiQueueCapacity, virtualThreads),
+                Workload.EXPORT, newExecutor(Workload.EXPORT, exportThreads, exportQueueCapacity, virtualThreads)
+        );
+    }
+
+    public AsyncTaskExecutor executor(Workload workload) {
+        return executors.get(workload);
+    }
+
+    /**
+     * Runs the given supplier in the execution lane of the given workload class. Throws a {@link TaskRejectedException}
+     * if that lane is full.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Workload workload, Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor(workload));
+    }
+
+    /**
+     * Takes a permit of the lane of the given workload class for the calling thread, if one is free at once.
+     * Returns an empty Optional otherwise, without waiting. The permit must be closed to give it back to the lane.
+     */
+    public Optional<LanePermit> tryAcquirePermit(Workload workload) {
+        Semaphore lanePermits = permits.get(workload);
+        return lanePermits.tryAcquire() ? Optional.of(new LanePermit(lanePermits)) : Optional.empty();
+    }
+
+    @Override
+    public void destroy() {
+        for (AsyncTaskExecutor executor : executors.values()) {
+            switch (executor) {
+                case ThreadPoolTaskExecutor threadPoolExecutor -> threadPoolExecutor.shutdown();
+                case SimpleAsyncTaskExecutor virtualThreadExecutor -> virtualThreadExecutor.close();
+                default -> throw new IllegalStateException("Unexpected executor: " + executor);
+            }
+        }
+    }
+
+    private static Semaphore newPermits(int threads) {
+        Preconditions.checkArgument(threads > 0, "The number of threads must be positive");
+        return new Semaphore(threads, true);
+    }
+
+    private AsyncTaskExecutor newExecutor(Workload workload, int threads, int queueCapacity, boolean virtualThreads) {
+        Preconditions.checkArgument(queueCapacity >= 0, "The queue capacity must not be negative");
+
+        return virtualThreads ?
+                newVirtualThreadExecutor(workload, threads, queueCapacity) :
+                newThreadPoolExecutor(workload, threads, queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor newThreadPoolExecutor(Workload workload, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(workload.name().toLowerCase(Locale.ROOT) + "-");
+        // A pool thread only waits for a permit while a permit of the lane is held outside of the lane
+        executor.setTaskDecorator(task -> holdingPermit(workload, task));
+        executor.initialize();
+        return executor;
+    }
+
+    private SimpleAsyncTaskExecutor newVirtualThreadExecutor(Workload workload, int threads, int queueCapacity) {
+        // The running tasks and the tasks waiting for a permit together stay within the concurrency limit
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(workload.name().toLowerCase(Locale.ROOT) + "-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(threads + queueCapacity);
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskDecorator(task -> holdingPermit(workload, task));
+        return executor;
+    }
+
+    private Runnable holdingPermit(Workload workload, Runnable task) {
+        Semaphore lanePermits = permits.get(workload);
+        // Statements executed in the lane count against the statement budget of the submitting request
+        Runnable propagatingTask = StatementCounter.propagating(task);
+        return () -> {
+            lanePermits.acquireUninterruptibly();
+            try {
+                propagatingTask.run();
+            } finally {
+                lanePermits.release();
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web.workload;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC configuration running asynchronous request processing not started by the controllers themselves,
+ * in particular the writing of streaming (NDJSON) exports, in the {@link Workload#EXPORT} execution lane.
+ * That lane runs on virtual threads in the virtual-thread execution mode, like the executor it replaces.
+ * It also registers the {@link LanePermitInterceptor}, giving back lane permits held while rendering.
+ *
+ * @author Chris de Vreeze
+ */
+@Configuration(proxyBeanMethods = false)
+public class WorkloadWebMvcConfigurer implements WebMvcConfigurer {
+
+    private final WorkloadExecutors workloadExecutors;
+
+    public WorkloadWebMvcConfigurer(WorkloadExecutors workloadExecutors) {
+        this.workloadExecutors = workloadExecutors;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(workloadExecutors.executor(Workload.EXPORT));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LanePermitInterceptor());
+    }
+}
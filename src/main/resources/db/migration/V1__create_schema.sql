@@ -1,6 +1,6 @@
-create sequence Address_seq;
-create sequence Appointment_seq;
-create sequence Task_seq;
+create sequence Address_seq increment by 50;
+create sequence Appointment_seq increment by 50;
+create sequence Task_seq increment by 50;
 
 create table Address (
   id BIGINT NOT NULL DEFAULT nextval('Address_seq') PRIMARY KEY,
@@ -0,0 +1,20 @@
+-- Indexes matching the query predicates in DefaultTaskService and DefaultAppointmentService
+
+-- Open and closed tasks (pages of them being ordered by ID)
+create index ix_task_open on Task (id) where closed = false;
+create index ix_task_closed on Task (id) where closed = true;
+
+-- Tasks with a target end before or after some moment
+create index ix_task_target_end on Task (target_end);
+
+-- Appointments within a time range (start >= ? and end_date_time < ?)
+create index ix_appointment_start_end on Appointment (start, end_date_time);
+
+-- Appointments ending before or after some moment
+create index ix_appointment_end on Appointment (end_date_time);
+
+-- Foreign key, used when deleting addresses
+create index ix_appointment_address_id on Appointment (address_id);
+
+-- Addresses looked up by name
+alter table Address add constraint uk_address_name unique (name);
@@ -0,0 +1,25 @@
+-- Full-text search (see DefaultSearchService), through generated tsvector columns with GIN indexes.
+-- The "simple" text search configuration does not stem words, because the data is not in one language.
+-- Names weigh more than descriptions, which weigh more than extra information.
+
+alter table Task add column search_vector tsvector generated always as (
+  setweight(to_tsvector('simple', name), 'A') ||
+  setweight(to_tsvector('simple', description), 'B') ||
+  setweight(to_tsvector('simple', coalesce(extra_information, '')), 'C')
+) stored;
+
+create index ix_task_search on Task using gin (search_vector);
+
+alter table Appointment add column search_vector tsvector generated always as (
+  setweight(to_tsvector('simple', name), 'A') ||
+  setweight(to_tsvector('simple', coalesce(extra_information, '')), 'C')
+) stored;
+
+create index ix_appointment_search on Appointment using gin (search_vector);
+
+alter table Address add column search_vector tsvector generated always as (
+  setweight(to_tsvector('simple', name), 'A') ||
+  setweight(to_tsvector('simple', city), 'B')
+) stored;
+
+create index ix_address_search on Address using gin (search_vector);
@@ -0,0 +1,4 @@
+-- Optimistic locking version of tasks (see TaskEntity and DefaultTaskService.updateTask).
+-- Existing rows, and rows inserted with plain SQL, start at version 0.
+
+alter table Task add column version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- ID sequences incremented by 50, matching the allocation size of the ID generators of the JPA entities.
+-- Databases created by V1 already have these increments, but databases created manually with the former
+-- create-db.sql script (baselined at version 1.1) may not.
+
+alter sequence Address_seq increment by 50;
+alter sequence Appointment_seq increment by 50;
+alter sequence Task_seq increment by 50;
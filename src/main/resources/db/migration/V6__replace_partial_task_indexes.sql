@@ -0,0 +1,9 @@
+-- The partial indexes on open and closed tasks (see V2) can only be used for a literal "closed = false/true".
+-- The task queries bind the closed flag as a parameter, and once the JDBC driver switches to server-side
+-- prepared statements PostgreSQL may pick a generic plan, which cannot use these partial indexes.
+-- A composite index supports both the parameterized filter and the ordering by ID within it.
+
+drop index ix_task_open;
+drop index ix_task_closed;
+
+create index ix_task_closed_id on Task (closed, id);
@@ -16,32 +16,47 @@
 
 package eu.cdevreeze.todo;
 
+import eu.cdevreeze.todo.jdbc.StatementCounter;
 import eu.cdevreeze.todo.service.AddressService;
 import eu.cdevreeze.todo.service.AppointmentService;
 import eu.cdevreeze.todo.service.TaskService;
 import eu.cdevreeze.todo.web.controller.TodoRestController;
+import eu.cdevreeze.todo.web.statementbudget.StatementBudgetInterceptor;
 import jakarta.persistence.EntityManager;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 import org.springframework.test.web.servlet.assertj.MvcTestResult;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Sanity check for bootstrapping of the entire ApplicationContext as an integration test,
  * yet using {@link MockMvc}.
+ * <p>
+ * Request handlers exceeding their SQL statement budget fail in this test, so the endpoint tests below
+ * also guard against N+1 selects.
  *
  * @author Chris de Vreeze
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = "todo.sql.statement-budget.fail-on-exceeded=true"
+)
 @AutoConfigureMockMvc
 @NullUnmarked
 class TodoApplicationMockMvcIT {
@@ -57,6 +72,9 @@ class TodoApplicationMockMvcIT {
     @Autowired
     private TodoRestController todoRestController;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -109,4 +127,155 @@ class TodoApplicationMockMvcIT {
                 .hasContentType(MediaType.APPLICATION_JSON)
                 .body().isNotEmpty().asString().contains("hogedrukreiniger").contains("2026-05-01");
     }
+
+    @Nested
+    @DisplayName("SQL statement budget tests, covering every endpoint")
+    class StatementBudgetTest {
+
+        private static final String NAME_PREFIX = "statement-budget-test-";
+
+        private MockMvcTester mockMvcTester;
+
+        @BeforeEach
+        void beforeEach() {
+            this.mockMvcTester = MockMvcTester.create(mockMvc);
+        }
+
+        @AfterEach
+        void afterEach() {
+            jdbcTemplate.update("delete from Appointment where name like ?", NAME_PREFIX + "%");
+            jdbcTemplate.update("delete from Address where name like ?", NAME_PREFIX + "%");
+            jdbcTemplate.update("delete from Task where name like ?", NAME_PREFIX + "%");
+        }
+
+        @Test
+        @DisplayName("GET endpoints for tasks stay within their statement budget")
+        void getTasksWithinBudget() {
+            assertWithinStatementBudget(mockMvcTester.get().uri("/tasks.json").accept(MediaType.APPLICATION_JSON).exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/tasks.json?closed=false&pageSize=2").accept(MediaType.APPLICATION_JSON).exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/tasks.ndjson").accept(MediaType.APPLICATION_NDJSON).exchange());
+        }
+
+        @Test
+        @DisplayName("POST, GET, PUT and DELETE endpoints for tasks stay within their statement budget")
+        void addAndDeleteTasksWithinBudget() {
+            MvcTestResult addResult = mockMvcTester
+                    .post()
+                    .uri("/tasks.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "name": "statement-budget-test-1", "description": "test", "targetEndOption": null, "extraInformationOption": null, "closed": false }
+                            """)
+                    .exchange();
+            assertWithinStatementBudget(addResult);
+            long id = jdbcTemplate.queryForObject("select id from Task where name = ?", Long.class, NAME_PREFIX + "1");
+
+            assertWithinStatementBudget(
+                    mockMvcTester.get().uri("/tasks/{id}.json", id).accept(MediaType.APPLICATION_JSON).exchange()
+            );
+
+            String taskUpdateJson = """
+                    { "idOption": %d, "name": "statement-budget-test-1", "description": "updated", "targetEndOption": null, "extraInformationOption": null, "closed": true, "versionOption": 0 }
+                    """.formatted(id);
+            assertWithinStatementBudget(
+                    mockMvcTester.put().uri("/tasks/{id}.json", id).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content(taskUpdateJson).exchange()
+            );
+            // Updating the same version again is a conflict
+            assertThat(
+                    mockMvcTester.put().uri("/tasks/{id}.json", id).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content(taskUpdateJson).exchange()
+            ).hasStatus(HttpStatus.CONFLICT);
+
+            assertWithinStatementBudget(
+                    mockMvcTester.delete().uri("/tasks.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content(String.valueOf(id)).exchange()
+            );
+
+            assertWithinStatementBudget(
+                    mockMvcTester.post().uri("/tasks/batch.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    [
+                                      { "name": "statement-budget-test-2", "description": "test", "targetEndOption": null, "extraInformationOption": null, "closed": false },
+                                      { "name": "statement-budget-test-3", "description": "test", "targetEndOption": null, "extraInformationOption": null, "closed": false }
+                                    ]
+                                    """)
+                            .exchange()
+            );
+            List<Long> ids = jdbcTemplate.queryForList("select id from Task where name like ?", Long.class, NAME_PREFIX + "%");
+
+            assertWithinStatementBudget(
+                    mockMvcTester.delete().uri("/tasks/batch.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content(ids.toString()).exchange()
+            );
+            assertWithinStatementBudget(
+                    mockMvcTester.delete().uri("/tasks/matching.json?closed=true&targetEndBefore=1970-01-01T00:00:00Z")
+                            .accept(MediaType.APPLICATION_JSON).exchange()
+            );
+        }
+
+        @Test
+        @DisplayName("endpoints for addresses stay within their statement budget")
+        void addressesWithinBudget() {
+            assertWithinStatementBudget(mockMvcTester.get().uri("/addresses.json").accept(MediaType.APPLICATION_JSON).exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/addresses.ndjson").accept(MediaType.APPLICATION_NDJSON).exchange());
+            assertWithinStatementBudget(
+                    mockMvcTester.post().uri("/addresses.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    { "addressName": "statement-budget-test-1", "addressLines": [ "kerkstraat 12" ], "zipCode": "6789ZZ", "city": "Havenstad", "countryCode": "NL" }
+                                    """)
+                            .exchange()
+            );
+        }
+
+        @Test
+        @DisplayName("endpoints for appointments (including their addresses) stay within their statement budget")
+        void appointmentsWithinBudget() {
+            assertWithinStatementBudget(
+                    mockMvcTester.post().uri("/addresses.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    { "addressName": "statement-budget-test-2", "addressLines": [], "zipCode": "6789ZZ", "city": "Havenstad", "countryCode": "NL" }
+                                    """)
+                            .exchange()
+            );
+            assertWithinStatementBudget(
+                    mockMvcTester.post().uri("/appointments.json").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    { "name": "statement-budget-test-1", "start": "2020-02-02T10:00:00Z", "end": "2020-02-02T11:00:00Z", "addressNameOption": "statement-budget-test-2", "extraInformationOption": null }
+                                    """)
+                            .exchange()
+            );
+
+            assertWithinStatementBudget(mockMvcTester.get().uri("/appointments.json").accept(MediaType.APPLICATION_JSON).exchange());
+            assertWithinStatementBudget(
+                    mockMvcTester.get().uri("/appointments.json?start=2020-01-01T00:00:00Z&end=2021-01-01T00:00:00Z")
+                            .accept(MediaType.APPLICATION_JSON).exchange()
+            );
+            assertWithinStatementBudget(
+                    mockMvcTester.get().uri("/appointments.json?start=2020-01-01T00:00:00Z&end=2021-01-01T00:00:00Z&overlapping=true")
+                            .accept(MediaType.APPLICATION_JSON).exchange()
+            );
+            assertWithinStatementBudget(mockMvcTester.get().uri("/appointments.ndjson").accept(MediaType.APPLICATION_NDJSON).exchange());
+        }
+
+        @Test
+        @DisplayName("pages and search endpoints stay within their statement budget")
+        void pagesAndSearchWithinBudget() {
+            assertWithinStatementBudget(mockMvcTester.get().uri("/tasks").exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/newTask").exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/search?q=thuis").exchange());
+            assertWithinStatementBudget(mockMvcTester.get().uri("/search.json?q=thuis").accept(MediaType.APPLICATION_JSON).exchange());
+        }
+
+        private static void assertWithinStatementBudget(MvcTestResult mvcTestResult) {
+            assertThat(mvcTestResult).hasStatus2xxSuccessful();
+            assertThat(mvcTestResult.getRequest().getAttribute(StatementBudgetInterceptor.STATEMENT_COUNTER_ATTRIBUTE))
+                    .asInstanceOf(InstanceOfAssertFactories.type(StatementCounter.class))
+                    .satisfies(counter -> {
+                        System.out.printf("%s: %d SQL statements%n", counter.getDescription(), counter.getStatementCount());
+                        assertThat(counter.getStatementCount()).isLessThanOrEqualTo(counter.getMaxStatements());
+                    });
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for SqlFingerprints.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class SqlFingerprintsTest {
+
+    @Test
+    @DisplayName("should replace literal values by placeholders")
+    void shouldReplaceLiterals() {
+        assertThat(SqlFingerprints.fingerprint("select t.id from Task t where t.name = 'it''s -- secret' and t.id > 42 and t.ratio < 0.5"))
+                .isEqualTo("select t.id from task t where t.name = ? and t.id > ? and t.ratio < ?");
+    }
+
+    @Test
+    @DisplayName("should not replace digits in identifiers")
+    void shouldKeepIdentifiers() {
+        assertThat(SqlFingerprints.fingerprint("select te1_0.id from Task te1_0 where te1_0.address_line1 = ?"))
+                .isEqualTo("select te1_0.id from task te1_0 where te1_0.address_line1 = ?");
+    }
+
+    @Test
+    @DisplayName("should give IN lists of different lengths the same fingerprint")
+    void shouldCollapseInLists() {
+        String fingerprint1 = SqlFingerprints.fingerprint("delete from Task t where t.id in (?)");
+        String fingerprint2 = SqlFingerprints.fingerprint("delete from Task t where t.id IN ( ?, ?,? , ? )");
+
+        assertThat(fingerprint1).isEqualTo("delete from task t where t.id in (...)");
+        assertThat(fingerprint2).isEqualTo(fingerprint1);
+    }
+
+    @Test
+    @DisplayName("should ignore comments, whitespace and case")
+    void shouldIgnoreCommentsWhitespaceAndCase() {
+        assertThat(SqlFingerprints.fingerprint("/* load tasks */ SELECT *\n  FROM Task -- all of them\n"))
+                .isEqualTo("select * from task");
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.jdbc;
+
+import eu.cdevreeze.todo.exception.StatementBudgetExceededException;
+import eu.cdevreeze.todo.jdbc.SqlStatementStatistics.StatementStats;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the StatementInspectingDataSource, wrapping a mock DataSource.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class StatementInspectingDataSourceTest {
+
+    private Connection targetConnection;
+    private SqlStatementStatistics statistics;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        this.targetConnection = mock(Connection.class);
+        DataSource targetDataSource = mock(DataSource.class);
+        when(targetDataSource.getConnection()).thenReturn(targetConnection);
+
+        this.statistics = new SqlStatementStatistics(Duration.ofSeconds(1), 100);
+        this.dataSource = new StatementInspectingDataSource(targetDataSource, statistics);
+    }
+
+    @Test
+    @DisplayName("should aggregate query executions and fetched rows per fingerprint")
+    void shouldAggregateQueries() throws Exception {
+        // Given
+        String sql1 = "select t.id from Task t where t.id in (?, ?)";
+        String sql2 = "select t.id from Task t where t.id in (?, ?, ?, ?)";
+        for (String sql : new String[]{sql1, sql2}) {
+            PreparedStatement targetStatement = mock(PreparedStatement.class);
+            ResultSet targetResultSet = mock(ResultSet.class);
+            when(targetConnection.prepareStatement(sql)).thenReturn(targetStatement);
+            when(targetStatement.executeQuery()).thenReturn(targetResultSet);
+            when(targetResultSet.next()).thenReturn(true, true, false);
+        }
+
+        // When
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : new String[]{sql1, sql2}) {
+                try (PreparedStatement statement = connection.prepareStatement(sql);
+                     ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+
+        // Then
+        assertThat(statistics.getStatistics())
+                .singleElement()
+                .satisfies(stats -> {
+                    assertThat(stats.fingerprint()).isEqualTo("select t.id from task t where t.id in (...)");
+                    assertThat(stats.count()).isEqualTo(2);
+                    assertThat(stats.rows()).isEqualTo(4);
+                    assertThat(stats.maxTime()).isLessThanOrEqualTo(stats.totalTime());
+                });
+        verify(targetConnection).close();
+    }
+
+    @Test
+    @DisplayName("should record the rows written by updates and batches")
+    void shouldRecordWrittenRows() throws Exception {
+        // Given
+        String deleteSql = "delete from Task where closed = true";
+        String insertSql = "insert into Task (name, description) values (?, ?)";
+        Statement targetStatement = mock(Statement.class);
+        PreparedStatement targetInsertStatement = mock(PreparedStatement.class);
+        when(targetConnection.createStatement()).thenReturn(targetStatement);
+        when(targetStatement.executeUpdate(deleteSql)).thenReturn(7);
+        when(targetConnection.prepareStatement(insertSql)).thenReturn(targetInsertStatement);
+        when(targetInsertStatement.executeBatch()).thenReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+
+        // When
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().executeUpdate(deleteSql);
+            PreparedStatement insertStatement = connection.prepareStatement(insertSql);
+            insertStatement.addBatch();
+            insertStatement.addBatch();
+            insertStatement.executeBatch();
+        }
+
+        // Then
+        assertThat(statistics.getStatistics())
+                .extracting(StatementStats::fingerprint, StatementStats::rows)
+                .containsExactlyInAnyOrder(
+                        tuple("delete from task where closed = true", 7L),
+                        tuple("insert into task (name, description) values (?, ?)", 2L)
+                );
+    }
+
+    @Test
+    @DisplayName("should count statements beyond the maximum number of fingerprints as other statements")
+    void shouldBoundNumberOfFingerprints() {
+        // Given
+        SqlStatementStatistics boundedStatistics = new SqlStatementStatistics(Duration.ofSeconds(1), 2);
+
+        // When
+        for (String table : new String[]{"Task", "Address", "Appointment"}) {
+            boundedStatistics.recordExecution(boundedStatistics.fingerprint("delete from " + table), 1000, 1);
+        }
+
+        // Then
+        assertThat(boundedStatistics.getStatistics())
+                .extracting(StatementStats::fingerprint)
+                .containsExactlyInAnyOrder("delete from task", "delete from address", SqlStatementStatistics.OTHER_FINGERPRINT);
+    }
+
+    @Test
+    @DisplayName("should fail the statement exceeding the budget of the bound statement counter, without executing it")
+    void shouldFailStatementExceedingBudget() throws Exception {
+        // Given
+        String sql = "select a.id from Address a where a.id = ?";
+        PreparedStatement targetStatement = mock(PreparedStatement.class);
+        when(targetConnection.prepareStatement(sql)).thenReturn(targetStatement);
+        when(targetStatement.executeQuery()).thenReturn(mock(ResultSet.class));
+        StatementCounter counter = new StatementCounter("Test", 2, true);
+
+        // When
+        StatementCounter.bind(counter);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.executeQuery();
+            statement.executeQuery();
+
+            // Then
+            assertThatThrownBy(statement::executeQuery)
+                    .isInstanceOf(StatementBudgetExceededException.class)
+                    .hasMessageContaining("budget of 2 SQL statements")
+                    .hasMessageContaining("(3 times): select a.id from address a where a.id = ?");
+        } finally {
+            StatementCounter.bind(null);
+        }
+        verify(targetStatement, times(2)).executeQuery();
+        assertThat(counter.getStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should count statements executed by tasks handed over to other threads")
+    void shouldPropagateStatementCounter() throws Exception {
+        // Given
+        String sql = "delete from Task where closed = true";
+        Statement targetStatement = mock(Statement.class);
+        when(targetConnection.createStatement()).thenReturn(targetStatement);
+        StatementCounter counter = new StatementCounter("Test", 10, false);
+
+        // When
+        Runnable task = () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.createStatement().executeUpdate(sql);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        StatementCounter.bind(counter);
+        Runnable propagatingTask;
+        try {
+            propagatingTask = StatementCounter.propagating(task);
+        } finally {
+            StatementCounter.bind(null);
+        }
+        Thread thread = Thread.ofPlatform().start(propagatingTask);
+        thread.join();
+
+        // Then
+        assertThat(counter.getStatementCounts()).containsExactly(entry("delete from task where closed = true", 1L));
+        assertThat(counter.isBudgetExceeded()).isFalse();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.metrics;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.service.AddressService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for the ServiceMetricsAspect, applied to a stub AddressService.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class ServiceMetricsAspectTest {
+
+    private static final ImmutableList<Address> addresses = ImmutableList.of(
+            new Address(OptionalLong.of(1), "thuis", ImmutableList.of(), "0000ZZ", "thuis", "NL"),
+            new Address(OptionalLong.of(2), "tandarts", ImmutableList.of("kerkstraat 12"), "6789ZZ", "Havenstad", "NL")
+    );
+
+    private SimpleMeterRegistry meterRegistry;
+    private AddressService addressService;
+
+    @BeforeEach
+    void beforeEach() {
+        this.meterRegistry = new SimpleMeterRegistry();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new StubAddressService());
+        proxyFactory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        this.addressService = proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("should time service calls and record the number of returned rows")
+    void shouldTimeCallsAndRecordRows() {
+        // When
+        addressService.findAllAddresses();
+        addressService.findAllAddresses();
+
+        // Then
+        assertThat(
+                meterRegistry.get(ServiceMetricsAspect.CALLS_METRIC)
+                        .tags("class", "StubAddressService", "method", "findAllAddresses", "exception", "none")
+                        .timer()
+                        .count()
+        ).isEqualTo(2);
+        assertThat(
+                meterRegistry.get(ServiceMetricsAspect.ROWS_METRIC)
+                        .tags("class", "StubAddressService", "method", "findAllAddresses")
+                        .summary()
+                        .totalAmount()
+        ).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("should record the number of rows passed to a consumer")
+    void shouldRecordConsumedRows() {
+        // When
+        List<Address> exportedAddresses = new ArrayList<>();
+        addressService.forEachAddress(exportedAddresses::add);
+
+        // Then
+        assertThat(exportedAddresses).isEqualTo(addresses);
+        assertThat(
+                meterRegistry.get(ServiceMetricsAspect.ROWS_METRIC)
+                        .tags("method", "forEachAddress")
+                        .summary()
+                        .totalAmount()
+        ).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should tag failed service calls with the exception, without recording rows")
+    void shouldTagFailedCalls() {
+        // When
+        assertThatThrownBy(() -> addressService.deleteAllAddresses()).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(
+                meterRegistry.get(ServiceMetricsAspect.CALLS_METRIC)
+                        .tags("method", "deleteAllAddresses", "exception", "IllegalStateException")
+                        .timer()
+                        .count()
+        ).isEqualTo(1);
+        assertThat(meterRegistry.find(ServiceMetricsAspect.ROWS_METRIC).tags("method", "deleteAllAddresses").summary())
+                .isNull();
+    }
+
+    private static class StubAddressService implements AddressService {
+
+        @Override
+        public ImmutableList<Address> findAllAddresses() {
+            return addresses;
+        }
+
+        @Override
+        public void forEachAddress(Consumer<? super Address> addressConsumer) {
+            addresses.forEach(addressConsumer);
+        }
+
+        @Override
+        public Address addAddress(Address address) {
+            return address;
+        }
+
+        @Override
+        public void deleteAllAddresses() {
+            throw new IllegalStateException("Addresses are still in use");
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.service.AddressService;
+import eu.cdevreeze.todo.service.AppointmentService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for the AddressService, and for the second-level cache of addresses (by ID and by address name),
+ * checked with Hibernate statistics.
+ * <p>
+ * The second-level cache is only updated when transactions commit, so this test does not run inside one
+ * (rolled back) test transaction. Instead, each step runs in its own transaction, and the data is deleted
+ * after each test.
+ * <p>
+ * See <a href="https://testcontainers.com/guides/testing-spring-boot-rest-api-using-testcontainers/">Spring Boot and Testcontainers</a>
+ * for the use of PostgreSQL test containers in Spring Boot tests.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AddressServiceTest extends AbstractServiceTest {
+
+    private static final Instant START = Instant.parse("2025-10-01T09:00:00Z");
+
+    private AddressService addressService;
+    private AppointmentService appointmentService;
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void beforeEach() {
+        DefaultDataVersionService dataVersionService = new DefaultDataVersionService();
+        this.addressService = new DefaultAddressService(entityManager, dataVersionService, BulkReadMode.STATELESS_SESSION);
+        this.appointmentService = new DefaultAppointmentService(entityManager, dataVersionService, BulkReadMode.STATELESS_SESSION);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        statistics().setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void afterEach() {
+        inTransaction(() -> {
+            appointmentService.deleteAllAppointments();
+            addressService.deleteAllAddresses();
+            return null;
+        });
+        statistics().setStatisticsEnabled(false);
+
+        this.addressService = null;
+        this.appointmentService = null;
+        this.transactionTemplate = null;
+    }
+
+    @Test
+    @DisplayName("should resolve the addresses of appointments from the second-level cache, once it is warm")
+    void shouldResolveAddressesFromCache() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = inTransaction(this::addSomeAddresses);
+        inTransaction(() -> addAppointments(10, addresses));
+
+        // Cold cache: the addresses are loaded from the database, and put in the cache
+        cache().evictEntityData(AddressEntity.class);
+        statistics().clear();
+
+        ImmutableList<Appointment> appointments = inTransaction(appointmentService::findAllAppointments);
+
+        assertThat(appointments).hasSize(10);
+        assertThat(statistics().getEntityStatistics(AddressEntity.class.getName()).getLoadCount()).isEqualTo(2);
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getPutCount()).isEqualTo(2);
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getHitCount()).isZero();
+
+        // Warm cache: the addresses are only resolved from the cache, without any Address SELECT
+        statistics().clear();
+
+        ImmutableList<Appointment> appointmentsAgain = inTransaction(appointmentService::findAllAppointments);
+
+        assertThat(appointmentsAgain).containsExactlyInAnyOrderElementsOf(appointments);
+        assertThat(statistics().getEntityStatistics(AddressEntity.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics().getEntityStatistics(AddressEntity.class.getName()).getFetchCount()).isZero();
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getHitCount()).isEqualTo(2);
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getMissCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should resolve the addresses of an appointment export from the second-level cache, once it is warm")
+    void shouldResolveExportedAddressesFromCache() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = inTransaction(this::addSomeAddresses);
+        inTransaction(() -> addAppointments(10, addresses));
+        inTransaction(appointmentService::findAllAppointments);
+        statistics().clear();
+
+        long appointmentCount = inTransaction(() -> {
+            AtomicLong count = new AtomicLong();
+            appointmentService.forEachAppointment(appointment -> count.incrementAndGet());
+            return count.get();
+        });
+
+        assertThat(appointmentCount).isEqualTo(10);
+        assertThat(statistics().getEntityStatistics(AddressEntity.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should look up addresses by name in the natural ID cache, once it is warm")
+    void shouldLookUpAddressByNameFromCache() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = inTransaction(this::addSomeAddresses);
+
+        // Cold cache: the address name is resolved to an ID with a query
+        cache().evictEntityData(AddressEntity.class);
+        cache().evictNaturalIdData(AddressEntity.class);
+        statistics().clear();
+
+        Optional<Address> address = inTransaction(() -> findAddressByName("thuis"));
+
+        assertThat(address).contains(addresses.getFirst());
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getExecutionCount()).isEqualTo(1);
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getCacheHitCount()).isZero();
+
+        // Warm cache: the address name and the address are both resolved from the cache, without any query
+        statistics().clear();
+
+        Optional<Address> addressAgain = inTransaction(() -> findAddressByName("thuis"));
+
+        assertThat(addressAgain).contains(addresses.getFirst());
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getExecutionCount()).isZero();
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getCacheHitCount()).isEqualTo(1);
+        assertThat(statistics().getEntityStatistics(AddressEntity.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics().getCacheRegionStatistics(AddressEntity.CACHE_REGION).getHitCount()).isEqualTo(1);
+
+        // Adding an appointment at that address uses the same natural ID lookup
+        statistics().clear();
+
+        Appointment appointment = inTransaction(() -> appointmentService.addAppointment(newAppointment(0, Optional.of("thuis"))));
+
+        assertThat(appointment.addressOption()).contains(addresses.getFirst());
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getExecutionCount()).isZero();
+        assertThat(statistics().getNaturalIdStatistics(AddressEntity.class.getName()).getCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should leave the address cache regions empty after deleting all addresses")
+    void shouldEvictAddressesWhenDeletingAll() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = inTransaction(this::addSomeAddresses);
+        inTransaction(() -> findAddressByName("thuis"));
+        inTransaction(() -> findAddressByName("kantoor"));
+        ImmutableList<Long> addressIds = addresses.stream()
+                .map(address -> address.idOption().orElseThrow())
+                .collect(ImmutableList.toImmutableList());
+        assertThat(addressIds).allSatisfy(id -> assertThat(cache().containsEntity(AddressEntity.class, id)).isTrue());
+
+        inTransaction(() -> {
+            addressService.deleteAllAddresses();
+            return null;
+        });
+
+        assertThat(addressIds).allSatisfy(id -> assertThat(cache().containsEntity(AddressEntity.class, id)).isFalse());
+
+        // Re-adding an address with the same name never resolves to the ID of the deleted address
+        Address readdedAddress = inTransaction(() -> addressService.addAddress(withoutId(addresses.getFirst())));
+
+        assertThat(inTransaction(() -> findAddressByName("thuis"))).contains(readdedAddress);
+        assertThat(readdedAddress.idOption()).isNotEqualTo(addresses.getFirst().idOption());
+        assertThat(inTransaction(() -> findAddressByName("kantoor"))).isEmpty();
+    }
+
+    private Optional<Address> findAddressByName(String addressName) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(AddressEntity.class)
+                .loadOptional(addressName)
+                .map(AddressEntity::toModel);
+    }
+
+    private ImmutableList<Address> addSomeAddresses() {
+        return ImmutableList.of(
+                addressService.addAddress(new Address(
+                        OptionalLong.empty(), "thuis", ImmutableList.of("Kerkstraat 1"), "1234 AB", "Amsterdam", "NL"
+                )),
+                addressService.addAddress(new Address(
+                        OptionalLong.empty(), "kantoor", ImmutableList.of("Stationsplein 10", "3e verdieping"), "3511 ED", "Utrecht", "NL"
+                ))
+        );
+    }
+
+    private ImmutableList<Appointment> addAppointments(int count, ImmutableList<Address> addresses) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> appointmentService.addAppointment(
+                        newAppointment(i, Optional.of(addresses.get(i % addresses.size()).addressName()))
+                ))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static Appointment.NewAppointment newAppointment(int index, Optional<String> addressNameOption) {
+        Instant start = START.plus(index, ChronoUnit.DAYS);
+        return new Appointment.NewAppointment(
+                "afspraak " + index, start, start.plus(1, ChronoUnit.HOURS), addressNameOption, Optional.empty()
+        );
+    }
+
+    private static Address withoutId(Address address) {
+        return new Address(
+                OptionalLong.empty(),
+                address.addressName(),
+                address.addressLines(),
+                address.zipCode(),
+                address.city(),
+                address.countryCode()
+        );
+    }
+
+    private <T> T inTransaction(Supplier<T> supplier) {
+        return transactionTemplate.execute(status -> supplier.get());
+    }
+
+    private Statistics statistics() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Cache cache() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+    }
+}
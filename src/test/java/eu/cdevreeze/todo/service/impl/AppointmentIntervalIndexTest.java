@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Appointment;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for the AppointmentIntervalIndex, comparing its query results with those of brute force filtering.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class AppointmentIntervalIndexTest {
+
+    private static final Instant origin = Instant.parse("2025-01-01T00:00:00Z");
+    private static final int APPOINTMENT_COUNT = 1000;
+    private static final int QUERY_COUNT = 200;
+
+    private Random random;
+    private ImmutableList<Appointment> appointments;
+
+    @BeforeEach
+    void beforeEach() {
+        this.random = new Random(12345L);
+        this.appointments = IntStream.range(0, APPOINTMENT_COUNT)
+                .mapToObj(i -> randomAppointment(i + 1))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Test
+    @DisplayName("should find the appointments between start and end")
+    void shouldFindAppointmentsBetween() {
+        AppointmentIntervalIndex index = AppointmentIntervalIndex.of(appointments);
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            Instant start = randomMoment();
+            Instant end = start.plus(random.nextInt(10 * 24), ChronoUnit.HOURS);
+
+            assertThat(index.findAppointmentsBetween(start, end))
+                    .containsExactlyInAnyOrderElementsOf(
+                            filter(a -> !a.start().isBefore(start) && a.end().isBefore(end))
+                    );
+        }
+    }
+
+    @Test
+    @DisplayName("should find the appointments overlapping start and end")
+    void shouldFindAppointmentsOverlapping() {
+        AppointmentIntervalIndex index = AppointmentIntervalIndex.of(appointments);
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            Instant start = randomMoment();
+            Instant end = start.plus(random.nextInt(10 * 24), ChronoUnit.HOURS);
+
+            assertThat(index.findAppointmentsOverlapping(start, end))
+                    .containsExactlyInAnyOrderElementsOf(
+                            filter(a -> a.start().isBefore(end) && a.end().isAfter(start))
+                    );
+        }
+    }
+
+    @Test
+    @DisplayName("should find the appointments ending after or before some moment")
+    void shouldFindAppointmentsEndingAfterOrBefore() {
+        AppointmentIntervalIndex index = AppointmentIntervalIndex.of(appointments);
+
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            Instant end = (i == 0) ? appointments.getFirst().end() : randomMoment();
+
+            assertThat(index.findAppointmentsEndingAfter(end))
+                    .containsExactlyInAnyOrderElementsOf(filter(a -> a.end().isAfter(end)));
+            assertThat(index.findAppointmentsEndingBefore(end))
+                    .containsExactlyInAnyOrderElementsOf(filter(a -> a.end().isBefore(end)));
+        }
+    }
+
+    @Test
+    @DisplayName("should find added appointments")
+    void shouldFindAddedAppointments() {
+        AppointmentIntervalIndex index = AppointmentIntervalIndex.empty();
+        for (Appointment appointment : appointments) {
+            index = index.plus(appointment);
+        }
+
+        assertThat(index.size()).isEqualTo(APPOINTMENT_COUNT);
+
+        Instant start = origin.plus(100, ChronoUnit.DAYS);
+        Instant end = start.plus(20, ChronoUnit.DAYS);
+        assertThat(index.findAppointmentsBetween(start, end))
+                .containsExactlyInAnyOrderElementsOf(
+                        filter(a -> !a.start().isBefore(start) && a.end().isBefore(end))
+                );
+    }
+
+    @Test
+    @DisplayName("should find nothing in an empty index")
+    void shouldFindNothingInEmptyIndex() {
+        AppointmentIntervalIndex index = AppointmentIntervalIndex.empty();
+
+        assertThat(index.findAppointmentsBetween(origin, origin.plus(1, ChronoUnit.DAYS))).isEmpty();
+        assertThat(index.findAppointmentsOverlapping(origin, origin.plus(1, ChronoUnit.DAYS))).isEmpty();
+        assertThat(index.findAppointmentsEndingAfter(origin)).isEmpty();
+        assertThat(index.findAppointmentsEndingBefore(origin)).isEmpty();
+    }
+
+    private List<Appointment> filter(Predicate<Appointment> predicate) {
+        return appointments.stream().filter(predicate).toList();
+    }
+
+    private Instant randomMoment() {
+        return origin.plus(random.nextInt(365 * 24), ChronoUnit.HOURS);
+    }
+
+    private Appointment randomAppointment(long id) {
+        Instant start = randomMoment();
+        // Mostly short appointments, and some long ones
+        int durationInHours = (random.nextInt(10) == 0) ? random.nextInt(30 * 24) : random.nextInt(4);
+        return new Appointment(
+                OptionalLong.of(id),
+                "appointment " + id,
+                start,
+                start.plus(durationInHours, ChronoUnit.HOURS),
+                Optional.empty(),
+                Optional.empty()
+        );
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.service.AddressService;
+import eu.cdevreeze.todo.service.AppointmentService;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit test for the AppointmentService, in particular for the appointment records built from query tuples,
+ * with their addresses resolved by ID.
+ * <p>
+ * See <a href="https://testcontainers.com/guides/testing-spring-boot-rest-api-using-testcontainers/">Spring Boot and Testcontainers</a>
+ * for the use of PostgreSQL test containers in Spring Boot tests.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class AppointmentServiceTest extends AbstractServiceTest {
+
+    private static final Instant START = Instant.parse("2025-10-01T09:00:00Z");
+
+    private AddressService addressService;
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        DefaultDataVersionService dataVersionService = new DefaultDataVersionService();
+        this.addressService = new DefaultAddressService(entityManager.getEntityManager(), dataVersionService, BulkReadMode.STATELESS_SESSION);
+        this.appointmentService = new DefaultAppointmentService(entityManager.getEntityManager(), dataVersionService, BulkReadMode.STATELESS_SESSION);
+        this.entityManager.clear();
+        this.entityManager.flush();
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.addressService = null;
+        this.appointmentService = null;
+    }
+
+    @Test
+    @DisplayName("should return all appointments, with their addresses")
+    void shouldReturnAllAppointments() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = addSomeAddresses();
+        addAppointments(3, addresses);
+        entityManager.clear();
+
+        ImmutableList<Appointment> appointments = appointmentService.findAllAppointments();
+
+        assertThat(appointments)
+                .hasSize(3)
+                .allSatisfy(appointment -> assertThat(appointment.idOption()).isPresent());
+        assertThat(appointments)
+                .extracting(Appointment::name, Appointment::addressOption)
+                .containsExactlyInAnyOrder(
+                        tuple("afspraak 0", Optional.of(addresses.get(0))),
+                        tuple("afspraak 1", Optional.of(addresses.get(1))),
+                        tuple("afspraak 2", Optional.empty())
+                );
+    }
+
+    @Test
+    @DisplayName("should return the appointments within a time range, with their addresses")
+    void shouldReturnAppointmentsBetween() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = addSomeAddresses();
+        addAppointments(6, addresses);
+        entityManager.clear();
+
+        ImmutableList<Appointment> appointments =
+                appointmentService.findAppointmentsBetween(START.plus(1, ChronoUnit.DAYS), START.plus(3, ChronoUnit.DAYS));
+
+        assertThat(appointments)
+                .extracting(Appointment::name, Appointment::start, Appointment::end, Appointment::addressOption)
+                .containsExactlyInAnyOrder(
+                        tuple(
+                                "afspraak 1", START.plus(1, ChronoUnit.DAYS), START.plus(1, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS),
+                                Optional.of(addresses.get(1))
+                        ),
+                        tuple(
+                                "afspraak 2", START.plus(2, ChronoUnit.DAYS), START.plus(2, ChronoUnit.DAYS).plus(1, ChronoUnit.HOURS),
+                                Optional.empty()
+                        )
+                );
+    }
+
+    @Test
+    @DisplayName("should pass all appointments ordered by ID, with their addresses, across several chunks")
+    void shouldPassAllAppointmentsInOrder() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        ImmutableList<Address> addresses = addSomeAddresses();
+        // More appointments than fit in one chunk of the export
+        int appointmentCount = 1234;
+        addAppointments(appointmentCount, addresses);
+        entityManager.clear();
+
+        List<Appointment> exportedAppointments = new ArrayList<>();
+        appointmentService.forEachAppointment(exportedAppointments::add);
+
+        assertThat(exportedAppointments).hasSize(appointmentCount);
+        assertThat(exportedAppointments)
+                .extracting(appointment -> appointment.idOption().orElseThrow())
+                .isSorted();
+        assertThat(exportedAppointments)
+                .containsExactlyInAnyOrderElementsOf(appointmentService.findAllAppointments());
+        assertThat(exportedAppointments)
+                .allSatisfy(appointment -> {
+                    int index = Integer.parseInt(appointment.name().substring("afspraak ".length()));
+                    assertThat(appointment.addressOption()).isEqualTo(expectedAddressOption(index, addresses));
+                });
+    }
+
+    private ImmutableList<Address> addSomeAddresses() {
+        return ImmutableList.of(
+                addressService.addAddress(new Address(
+                        OptionalLong.empty(), "thuis", ImmutableList.of("Kerkstraat 1"), "1234 AB", "Amsterdam", "NL"
+                )),
+                addressService.addAddress(new Address(
+                        OptionalLong.empty(), "kantoor", ImmutableList.of("Stationsplein 10", "3e verdieping"), "3511 ED", "Utrecht", "NL"
+                ))
+        );
+    }
+
+    /**
+     * Adds appointments "afspraak 0", "afspraak 1" etc., one per day, at the addresses in turn, with every third
+     * appointment having no address.
+     */
+    private void addAppointments(int count, ImmutableList<Address> addresses) {
+        IntStream.range(0, count).forEach(i -> {
+            Instant start = START.plus(i, ChronoUnit.DAYS);
+            appointmentService.addAppointment(new Appointment.NewAppointment(
+                    "afspraak " + i,
+                    start,
+                    start.plus(1, ChronoUnit.HOURS),
+                    expectedAddressOption(i, addresses).map(Address::addressName),
+                    Optional.empty()
+            ));
+        });
+    }
+
+    private static Optional<Address> expectedAddressOption(int index, ImmutableList<Address> addresses) {
+        return (index % 3 == 2) ? Optional.empty() : Optional.of(addresses.get(index % 3));
+    }
+}
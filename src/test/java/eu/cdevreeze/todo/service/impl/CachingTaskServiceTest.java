@@ -0,0 +1,311 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskFilter;
+import eu.cdevreeze.todo.service.TaskService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the CachingTaskService, using a mock delegate TaskService.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class CachingTaskServiceTest {
+
+    private static final Task task = new Task(
+            OptionalLong.of(1), "stofzuigen kamer", "stofzuigen kamer", Optional.empty(), Optional.empty(), false,
+            OptionalLong.of(0)
+    );
+
+    private TaskService delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingTaskService taskService;
+
+    @BeforeEach
+    void beforeEach() {
+        this.delegate = mock(TaskService.class);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.taskService = new CachingTaskService(delegate, 100, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("lookup tests")
+    class LookupTest {
+
+        @Test
+        @DisplayName("should load a task by ID only once")
+        void shouldLoadTaskByIdOnce() {
+            // Given
+            when(delegate.findTask(1)).thenReturn(Optional.of(task));
+
+            // When
+            Optional<Task> firstResult = taskService.findTask(1);
+            Optional<Task> secondResult = taskService.findTask(1);
+
+            // Then
+            assertThat(firstResult).contains(task);
+            assertThat(secondResult).contains(task);
+            verify(delegate, times(1)).findTask(1);
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "tasksById").tag("result", "hit").functionCounter().count())
+                    .isEqualTo(1);
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "tasksById").tag("result", "miss").functionCounter().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should load a task by name only once")
+        void shouldLoadTaskByNameOnce() {
+            // Given
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task));
+
+            // When
+            taskService.findTaskByName(task.name());
+            Optional<Task> result = taskService.findTaskByName(task.name());
+
+            // Then
+            assertThat(result).contains(task);
+            verify(delegate, times(1)).findTaskByName(task.name());
+        }
+
+        @Test
+        @DisplayName("should not cache absent tasks")
+        void shouldNotCacheAbsentTasks() {
+            // Given
+            when(delegate.findTask(2)).thenReturn(Optional.empty());
+
+            // When
+            taskService.findTask(2);
+            Optional<Task> result = taskService.findTask(2);
+
+            // Then
+            assertThat(result).isEmpty();
+            verify(delegate, times(2)).findTask(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidation tests")
+    class InvalidationTest {
+
+        @Test
+        @DisplayName("should invalidate a task on update")
+        void shouldInvalidateOnUpdate() {
+            // Given
+            Task taskUpdate = new Task(
+                    task.idOption(), task.name(), "stofzuigen woonkamer", Optional.empty(), Optional.empty(), true,
+                    task.versionOption()
+            );
+            Task updatedTask = taskUpdate.withVersion(1);
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.of(updatedTask));
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task)).thenReturn(Optional.of(updatedTask));
+            when(delegate.updateTask(taskUpdate)).thenReturn(updatedTask);
+            taskService.findTask(1);
+            taskService.findTaskByName(task.name());
+
+            // When
+            taskService.updateTask(taskUpdate);
+
+            // Then
+            assertThat(taskService.findTask(1)).contains(updatedTask);
+            assertThat(taskService.findTaskByName(task.name())).contains(updatedTask);
+        }
+
+        @Test
+        @DisplayName("should invalidate a task on an unconditional update")
+        void shouldInvalidateOnUnconditionalUpdate() {
+            // Given
+            Task taskUpdate = new Task(
+                    task.idOption(), task.name(), "stofzuigen woonkamer", Optional.empty(), Optional.empty(), true,
+                    OptionalLong.empty()
+            );
+            Task updatedTask = taskUpdate.withVersion(1);
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.of(updatedTask));
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task)).thenReturn(Optional.of(updatedTask));
+            when(delegate.updateTaskUnconditionally(taskUpdate)).thenReturn(updatedTask);
+            taskService.findTask(1);
+            taskService.findTaskByName(task.name());
+
+            // When
+            taskService.updateTaskUnconditionally(taskUpdate);
+
+            // Then
+            assertThat(taskService.findTask(1)).contains(updatedTask);
+            assertThat(taskService.findTaskByName(task.name())).contains(updatedTask);
+        }
+
+        @Test
+        @DisplayName("should invalidate a task on a version conflict, since the cached task may be outdated")
+        void shouldInvalidateOnVersionConflict() {
+            // Given
+            Task taskUpdate = new Task(
+                    task.idOption(), task.name(), "stofzuigen woonkamer", Optional.empty(), Optional.empty(), true,
+                    task.versionOption()
+            );
+            Task currentTask = new Task(
+                    task.idOption(), task.name(), "stofzuigen slaapkamer", Optional.empty(), Optional.empty(), false,
+                    OptionalLong.of(1)
+            );
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.of(currentTask));
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task)).thenReturn(Optional.of(currentTask));
+            when(delegate.updateTask(taskUpdate)).thenThrow(new TaskVersionConflictException(taskUpdate, 1));
+            taskService.findTask(1);
+            taskService.findTaskByName(task.name());
+
+            // When
+            assertThatThrownBy(() -> taskService.updateTask(taskUpdate)).isInstanceOf(TaskVersionConflictException.class);
+
+            // Then
+            assertThat(taskService.findTask(1)).contains(currentTask);
+            assertThat(taskService.findTaskByName(task.name())).contains(currentTask);
+        }
+
+        @Test
+        @DisplayName("should invalidate a task, by ID and by name, on delete")
+        void shouldInvalidateOnDelete() {
+            // Given
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            when(delegate.deleteTask(1)).thenReturn(Optional.of(task.name()));
+            taskService.findTask(1);
+            taskService.findTaskByName(task.name());
+
+            // When
+            taskService.deleteTask(1);
+
+            // Then
+            assertThat(taskService.findTask(1)).isEmpty();
+            assertThat(taskService.findTaskByName(task.name())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should invalidate the tasks deleted by ID, by ID and by name")
+        void shouldInvalidateOnDeleteById() {
+            // Given
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            when(delegate.findTaskByName(task.name())).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            when(delegate.deleteTasks(List.of(1L, 2L))).thenReturn(ImmutableSet.of(task.name()));
+            taskService.findTask(1);
+            taskService.findTaskByName(task.name());
+
+            // When
+            Set<String> deletedNames = taskService.deleteTasks(List.of(1L, 2L));
+
+            // Then
+            assertThat(deletedNames).containsExactly(task.name());
+            assertThat(taskService.findTask(1)).isEmpty();
+            assertThat(taskService.findTaskByName(task.name())).isEmpty();
+        }
+
+        @Test
+        @Timeout(10)
+        @DisplayName("should invalidate a task by name that is being loaded concurrently with its deletion")
+        void shouldInvalidateConcurrentlyLoadedTaskOnDelete() throws Exception {
+            // Given
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch deleting = new CountDownLatch(1);
+            when(delegate.deleteTask(1)).thenAnswer(invocation -> {
+                deleting.countDown();
+                return Optional.of(task.name());
+            });
+            // The load reads the task before the deletion commits, and completes after the deletion
+            when(delegate.findTaskByName(task.name())).thenAnswer(invocation -> {
+                loading.countDown();
+                deleting.await();
+                Thread.sleep(200);
+                return Optional.of(task);
+            }).thenReturn(Optional.empty());
+            CompletableFuture<Optional<Task>> loadResult = CompletableFuture.supplyAsync(() -> taskService.findTaskByName(task.name()));
+            loading.await();
+
+            // When
+            taskService.deleteTask(1);
+
+            // Then
+            assertThat(loadResult.get()).contains(task);
+            assertThat(taskService.findTaskByName(task.name())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should invalidate all tasks on delete by filter")
+        void shouldInvalidateAllOnDeleteByFilter() {
+            // Given
+            TaskFilter filter = new TaskFilter(Optional.of(false), Optional.empty());
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            when(delegate.deleteTasksMatching(filter)).thenReturn(1L);
+            taskService.findTask(1);
+
+            // When
+            long deletedCount = taskService.deleteTasksMatching(filter);
+
+            // Then
+            assertThat(deletedCount).isEqualTo(1);
+            assertThat(taskService.findTask(1)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should only invalidate the deleted task")
+        void shouldOnlyInvalidateDeletedTask() {
+            // Given
+            when(delegate.findTask(1)).thenReturn(Optional.of(task));
+            taskService.findTask(1);
+
+            // When
+            taskService.deleteTask(2);
+            taskService.findTask(1);
+
+            // Then
+            verify(delegate, times(1)).findTask(1);
+        }
+
+        @Test
+        @DisplayName("should invalidate all tasks on delete all")
+        void shouldInvalidateOnDeleteAll() {
+            // Given
+            when(delegate.findTask(1)).thenReturn(Optional.of(task)).thenReturn(Optional.empty());
+            taskService.findTask(1);
+
+            // When
+            taskService.deleteAllTasks();
+
+            // Then
+            assertThat(taskService.findTask(1)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Appointment;
+import eu.cdevreeze.todo.service.AppointmentService;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the IndexedAppointmentService, using a mock delegate AppointmentService.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class IndexedAppointmentServiceTest {
+
+    private static final Instant start = Instant.parse("2025-09-01T09:00:00Z");
+
+    private static final Appointment appointment1 = appointment(1, start);
+    private static final Appointment appointment2 = appointment(2, start.plus(1, ChronoUnit.DAYS));
+
+    private AppointmentService delegate;
+    private IndexedAppointmentService appointmentService;
+
+    @BeforeEach
+    void beforeEach() {
+        this.delegate = mock(AppointmentService.class);
+        this.appointmentService = new IndexedAppointmentService(delegate);
+    }
+
+    @Test
+    @DisplayName("should load the index once, and add new appointments to it")
+    void shouldLoadIndexOnceAndAddAppointments() {
+        // Given
+        when(delegate.findAllAppointments()).thenReturn(ImmutableList.of(appointment1));
+        when(delegate.addAppointment(newAppointment(appointment2))).thenReturn(appointment2);
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).containsExactly(appointment1);
+
+        // When
+        appointmentService.addAppointment(newAppointment(appointment2));
+
+        // Then
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).containsExactly(appointment1, appointment2);
+        verify(delegate, times(1)).findAllAppointments();
+    }
+
+    @Test
+    @DisplayName("should reload the index after deleting all appointments")
+    void shouldReloadIndexAfterDeletion() {
+        // Given
+        when(delegate.findAllAppointments()).thenReturn(ImmutableList.of(appointment1)).thenReturn(ImmutableList.of());
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).containsExactly(appointment1);
+
+        // When
+        appointmentService.deleteAllAppointments();
+
+        // Then
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).isEmpty();
+        verify(delegate, times(2)).findAllAppointments();
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("should not hold the lock while adding an appointment to the database")
+    void shouldNotHoldLockDuringAddition() {
+        // Given
+        when(delegate.findAllAppointments())
+                .thenReturn(ImmutableList.of(appointment1))
+                .thenReturn(ImmutableList.of(appointment2));
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).containsExactly(appointment1);
+        // Another thread deletes all appointments while the addition is in progress
+        when(delegate.addAppointment(newAppointment(appointment2))).thenAnswer(invocation -> {
+            CompletableFuture.runAsync(appointmentService::deleteAllAppointments).join();
+            return appointment2;
+        });
+
+        // When
+        appointmentService.addAppointment(newAppointment(appointment2));
+
+        // Then
+        assertThat(appointmentService.findAppointmentsEndingAfter(start)).containsExactly(appointment2);
+        verify(delegate, times(2)).findAllAppointments();
+    }
+
+    private static Appointment appointment(long id, Instant start) {
+        return new Appointment(
+                OptionalLong.of(id), "afspraak " + id, start, start.plus(1, ChronoUnit.HOURS), Optional.empty(), Optional.empty()
+        );
+    }
+
+    private static Appointment.NewAppointment newAppointment(Appointment appointment) {
+        return new Appointment.NewAppointment(
+                appointment.name(), appointment.start(), appointment.end(), Optional.empty(), Optional.empty()
+        );
+    }
+}
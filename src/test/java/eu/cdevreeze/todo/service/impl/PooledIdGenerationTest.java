@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.model.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test showing that pooled ID generation (with database sequences incremented by 50) yields unique IDs
+ * when several application instances share the same database.
+ * <p>
+ * Each application instance is represented by its own EntityManagerFactory (bootstrapped from the "todo"
+ * persistence unit), and therefore by its own in-memory blocks of reserved IDs. Meanwhile, some rows are
+ * inserted with plain SQL, taking their ID from the column default.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class PooledIdGenerationTest extends AbstractServiceTest {
+
+    private static final int INSTANCE_COUNT = 3;
+    private static final int TASKS_PER_INSTANCE = 120;
+    private static final int PLAIN_SQL_INSERT_INTERVAL = 25;
+    private static final String TASK_NAME_PREFIX = "pooled-id-test-";
+
+    private List<EntityManagerFactory> applicationInstances;
+
+    @BeforeEach
+    void beforeEach() {
+        this.applicationInstances = IntStream.range(0, INSTANCE_COUNT)
+                .mapToObj(i -> createEntityManagerFactory())
+                .toList();
+    }
+
+    @AfterEach
+    void afterEach() {
+        inTransaction(applicationInstances.getFirst(), em ->
+                em.createQuery("delete from Task t where t.name like :prefix")
+                        .setParameter("prefix", TASK_NAME_PREFIX + "%")
+                        .executeUpdate()
+        );
+        applicationInstances.forEach(EntityManagerFactory::close);
+        this.applicationInstances = null;
+    }
+
+    @Test
+    @DisplayName("should generate unique IDs across application instances sharing one database")
+    void shouldGenerateUniqueIdsAcrossApplicationInstances() throws Exception {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Long> ids = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(INSTANCE_COUNT)) {
+            List<Future<ImmutableList<Long>>> results = IntStream.range(0, INSTANCE_COUNT)
+                    .mapToObj(i -> executor.submit(() -> insertTasks(applicationInstances.get(i), i)))
+                    .toList();
+
+            for (Future<ImmutableList<Long>> result : results) {
+                ids.addAll(result.get());
+            }
+        }
+
+        assertThat(ids)
+                .hasSize(INSTANCE_COUNT * TASKS_PER_INSTANCE)
+                .doesNotHaveDuplicates();
+
+        int plainSqlInsertCount = INSTANCE_COUNT * (TASKS_PER_INSTANCE / PLAIN_SQL_INSERT_INTERVAL);
+        Long rowCount = inTransaction(applicationInstances.getFirst(), em ->
+                em.createQuery("select count(distinct t.id) from Task t where t.name like :prefix", Long.class)
+                        .setParameter("prefix", TASK_NAME_PREFIX + "%")
+                        .getSingleResult()
+        );
+        assertThat(rowCount).isEqualTo((long) (ids.size() + plainSqlInsertCount));
+    }
+
+    private ImmutableList<Long> insertTasks(EntityManagerFactory applicationInstance, int instanceIndex) {
+        ImmutableList.Builder<Long> ids = ImmutableList.builder();
+
+        for (int i = 0; i < TASKS_PER_INSTANCE; i++) {
+            String name = TASK_NAME_PREFIX + instanceIndex + "-" + i;
+            TaskEntity taskEntity = TaskEntity.fromModel(
+                    Task.newTask(name, name, Optional.empty(), Optional.empty(), false)
+            );
+            inTransaction(applicationInstance, em -> {
+                em.persist(taskEntity);
+                return taskEntity;
+            });
+            ids.add(taskEntity.getId());
+
+            if ((i + 1) % PLAIN_SQL_INSERT_INTERVAL == 0) {
+                inTransaction(applicationInstance, em ->
+                        em.createNativeQuery("insert into Task (name, description) values (:name, :name)")
+                                .setParameter("name", name + "-plain-sql")
+                                .executeUpdate()
+                );
+            }
+        }
+        return ids.build();
+    }
+
+    private static <T> T inTransaction(EntityManagerFactory entityManagerFactory, Function<EntityManager, T> f) {
+        try (EntityManager em = entityManagerFactory.createEntityManager()) {
+            em.getTransaction().begin();
+            T result = f.apply(em);
+            em.getTransaction().commit();
+            return result;
+        }
+    }
+
+    private static EntityManagerFactory createEntityManagerFactory() {
+        return Persistence.createEntityManagerFactory(
+                "todo",
+                Map.of(
+                        "jakarta.persistence.jdbc.url", postgres.getJdbcUrl(),
+                        "jakarta.persistence.jdbc.user", postgres.getUsername(),
+                        "jakarta.persistence.jdbc.password", postgres.getPassword()
+                )
+        );
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.service.impl;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.entity.AddressEntity;
+import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.model.Address;
+import eu.cdevreeze.todo.model.SearchHit;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.service.SearchService;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit test for the SearchService, against the tsvector columns and GIN indexes of migration V3.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class SearchServiceTest extends AbstractServiceTest {
+
+    private SearchService searchService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void beforeEach() {
+        this.searchService = new DefaultSearchService(entityManager.getEntityManager());
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.searchService = null;
+    }
+
+    @Test
+    @DisplayName("should find tasks and addresses, best hits first")
+    void shouldFindBestHitsFirst() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeData();
+
+        ImmutableList<SearchHit> hits = searchService.search("zolder", 10);
+
+        assertThat(hits)
+                .extracting(SearchHit::kind, SearchHit::name)
+                .containsExactly(
+                        tuple(SearchHit.Kind.ADDRESS, "zolder"),
+                        tuple(SearchHit.Kind.TASK, "opruimen zolder"),
+                        tuple(SearchHit.Kind.TASK, "stofzuigen kamer")
+                );
+        assertThat(hits).extracting(SearchHit::rank).isSortedAccordingTo((r1, r2) -> Double.compare(r2, r1));
+    }
+
+    @Test
+    @DisplayName("should search description, extra information and city")
+    void shouldSearchAllTextColumns() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeData();
+
+        assertThat(searchService.search("grondig", 10)).extracting(SearchHit::name).containsExactly("opruimen zolder");
+        assertThat(searchService.search("stofzuiger", 10)).extracting(SearchHit::name).containsExactly("stofzuigen kamer");
+        assertThat(searchService.search("Utrecht", 10)).extracting(SearchHit::name).containsExactly("zolder");
+    }
+
+    @Test
+    @DisplayName("should respect the limit and exclusions")
+    void shouldRespectLimitAndExclusions() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeData();
+
+        assertThat(searchService.search("zolder", 1)).extracting(SearchHit::name).containsExactly("zolder");
+        assertThat(searchService.search("zolder -opruimen", 10))
+                .extracting(SearchHit::name)
+                .containsExactly("zolder", "stofzuigen kamer");
+        assertThat(searchService.search("  ", 10)).isEmpty();
+    }
+
+    private void addSomeData() {
+        List.of(
+                Task.newTask("opruimen zolder", "grondig opruimen", Optional.empty(), Optional.empty(), false),
+                Task.newTask("stofzuigen kamer", "met de nieuwe stofzuiger", Optional.empty(), Optional.of("daarna zolder"), false)
+        ).forEach(task -> entityManager.persistAndFlush(TaskEntity.fromModel(task)));
+
+        entityManager.persistAndFlush(
+                AddressEntity.fromModel(
+                        new Address(OptionalLong.empty(), "zolder", ImmutableList.of("Dorpsstraat 1"), "3511AA", "Utrecht", "NL")
+                )
+        );
+    }
+}
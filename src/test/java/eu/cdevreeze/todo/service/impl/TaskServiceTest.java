@@ -19,8 +19,17 @@ package eu.cdevreeze.todo.service.impl;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.todo.entity.TaskEntity;
+import eu.cdevreeze.todo.exception.TaskExistsException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
 import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
 import eu.cdevreeze.todo.service.TaskService;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import org.jspecify.annotations.NullUnmarked;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -31,11 +40,14 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Unit test for the TaskService.
@@ -61,7 +73,7 @@ class TaskServiceTest extends AbstractServiceTest {
 
     @BeforeEach
     void beforeEach() {
-        this.taskService = new DefaultTaskService(entityManager.getEntityManager());
+        this.taskService = new DefaultTaskService(entityManager.getEntityManager(), new DefaultDataVersionService(), BulkReadMode.STATELESS_SESSION);
         this.entityManager.clear(); // Much better: Spring-offered automatic rollback
         this.entityManager.flush();
     }
@@ -128,6 +140,68 @@ class TaskServiceTest extends AbstractServiceTest {
                 );
     }
 
+    @Test
+    @DisplayName("should return tasks page by page")
+    void shouldReturnTasksPageByPage() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeTasks();
+
+        Page<Task> firstPage = taskService.findTasks(PageRequest.firstPage(2));
+
+        assertThat(firstPage.items())
+                .extracting(Task::name)
+                .isEqualTo(List.of("opruimen kamer", "stofzuigen kamer"));
+        assertThat(firstPage.nextPageTokenOption()).isPresent();
+
+        Page<Task> secondPage =
+                taskService.findTasks(PageRequest.nextPage(firstPage.nextPageTokenOption().orElseThrow(), 2));
+
+        assertThat(secondPage.items())
+                .extracting(Task::name)
+                .isEqualTo(List.of("opruimen slaapkamer"));
+        assertThat(secondPage.nextPageTokenOption()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should return open tasks page by page")
+    void shouldReturnOpenTasksPageByPage() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeTasks();
+
+        Page<Task> firstPage = taskService.findOpenTasks(PageRequest.firstPage(1));
+
+        assertThat(firstPage.items())
+                .extracting(Task::name)
+                .isEqualTo(List.of("stofzuigen kamer"));
+        assertThat(firstPage.nextPageTokenOption()).isPresent();
+
+        Page<Task> secondPage =
+                taskService.findOpenTasks(PageRequest.nextPage(firstPage.nextPageTokenOption().orElseThrow(), 1));
+
+        assertThat(secondPage.items())
+                .extracting(Task::name)
+                .isEqualTo(List.of("opruimen slaapkamer"));
+        assertThat(secondPage.nextPageTokenOption()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should pass all tasks to the consumer without keeping them managed")
+    void shouldPassAllTasksToConsumer() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+        entityManager.clear();
+
+        List<Task> tasks = new ArrayList<>();
+        taskService.forEachTask(tasks::add);
+
+        assertThat(tasks).isEqualTo(addedTasks);
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+                .isZero();
+    }
+
     @Test
     @DisplayName("should return all tasks having target end after")
     void shouldReturnTasksHavingTargetEndAfter() {
@@ -240,7 +314,8 @@ class TaskServiceTest extends AbstractServiceTest {
                 "opruimen van oude tijdschriften",
                 Optional.of(Instant.now().plus(14, ChronoUnit.DAYS)),
                 Optional.empty(),
-                false
+                false,
+                OptionalLong.empty()
         );
 
         Task task = taskService.addTask(newTask);
@@ -259,6 +334,53 @@ class TaskServiceTest extends AbstractServiceTest {
         ).hasSize(initSize + 1);
     }
 
+    @Test
+    @DisplayName("should not add task with existing name")
+    void shouldNotAddTaskWithExistingName() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        addSomeTasks();
+
+        Task newTask = Task.newTask("stofzuigen kamer", "nogmaals stofzuigen", Optional.empty(), Optional.empty(), false);
+
+        assertThatThrownBy(() -> taskService.addTask(newTask))
+                .isInstanceOf(TaskExistsException.class)
+                .hasCauseInstanceOf(ConstraintViolationException.class);
+    }
+
+    @Test
+    @DisplayName("should add a batch of tasks, skipping existing and duplicate names")
+    void shouldAddTasks() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+        int initSize = addedTasks.size();
+
+        List<Task> newTasks = List.of(
+                Task.newTask("opruimen", "opruimen van oude tijdschriften", Optional.empty(), Optional.empty(), false),
+                Task.newTask("stofzuigen kamer", "stofzuigen kamer", Optional.empty(), Optional.empty(), false),
+                Task.newTask("afwassen", "afwassen", Optional.empty(), Optional.empty(), false),
+                Task.newTask("opruimen", "opruimen van oude kranten", Optional.empty(), Optional.empty(), false)
+        );
+
+        List<TaskAdditionResult> results = taskService.addTasks(newTasks);
+
+        assertThat(results)
+                .extracting(TaskAdditionResult::status)
+                .isEqualTo(List.of(
+                        TaskAdditionResult.Status.ADDED,
+                        TaskAdditionResult.Status.NAME_EXISTS,
+                        TaskAdditionResult.Status.ADDED,
+                        TaskAdditionResult.Status.DUPLICATE_NAME_IN_BATCH
+                ));
+        assertThat(results.get(0).task().idOption()).isPresent();
+        assertThat(results.get(0).task().withoutId()).isEqualTo(newTasks.get(0));
+        assertThat(results.get(1).task()).isEqualTo(newTasks.get(1));
+        assertThat(
+                entityManager.getEntityManager().createQuery("select t from Task t").getResultList()
+        ).hasSize(initSize + 2);
+    }
+
     @Test
     @DisplayName("should update task")
     void shouldUpdateTask() {
@@ -276,7 +398,8 @@ class TaskServiceTest extends AbstractServiceTest {
                 taskToUpdate.description(),
                 taskToUpdate.targetEndOption(),
                 Optional.of("de slaapkamers zijn ook meegenomen bij het stofzuigen"),
-                true
+                true,
+                taskToUpdate.versionOption()
         );
 
         Task task = taskService.updateTask(taskUpdate);
@@ -289,12 +412,132 @@ class TaskServiceTest extends AbstractServiceTest {
                     assertThat(t.targetEndOption()).isEqualTo(taskToUpdate.targetEndOption());
                     assertThat(t.extraInformationOption()).isEqualTo(Optional.of("de slaapkamers zijn ook meegenomen bij het stofzuigen"));
                     assertThat(t.closed()).isEqualTo(true);
+                    assertThat(t.versionOption()).hasValue(taskToUpdate.versionOption().orElseThrow() + 1);
                 });
+        assertThat(taskService.findTask(taskToUpdate.idOption().orElseThrow())).hasValue(task);
         assertThat(
                 entityManager.getEntityManager().createQuery("select t from Task t").getResultList()
         ).hasSize(initSize);
     }
 
+    @Test
+    @DisplayName("should not update task that has been updated in the meantime")
+    void shouldNotUpdateTaskWithOutdatedVersion() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+
+        Task taskToUpdate = addedTasks.stream().filter(t -> t.name().equals("stofzuigen kamer")).findFirst().orElseThrow();
+        long version = taskToUpdate.versionOption().orElseThrow();
+
+        Task firstUpdate = new Task(
+                taskToUpdate.idOption(),
+                taskToUpdate.name(),
+                "stofzuigen woonkamer",
+                taskToUpdate.targetEndOption(),
+                taskToUpdate.extraInformationOption(),
+                taskToUpdate.closed(),
+                taskToUpdate.versionOption()
+        );
+        Task secondUpdate = new Task(
+                taskToUpdate.idOption(),
+                taskToUpdate.name(),
+                "stofzuigen slaapkamer",
+                taskToUpdate.targetEndOption(),
+                taskToUpdate.extraInformationOption(),
+                true,
+                taskToUpdate.versionOption()
+        );
+
+        taskService.updateTask(firstUpdate);
+
+        assertThatThrownBy(() -> taskService.updateTask(secondUpdate))
+                .isInstanceOf(TaskVersionConflictException.class)
+                .satisfies(e -> assertThat(((TaskVersionConflictException) e).getCurrentVersion()).isEqualTo(version + 1));
+        assertThat(taskService.findTask(taskToUpdate.idOption().orElseThrow()))
+                .hasValueSatisfying(t -> {
+                    assertThat(t.description()).isEqualTo("stofzuigen woonkamer");
+                    assertThat(t.closed()).isEqualTo(taskToUpdate.closed());
+                    assertThat(t.versionOption()).hasValue(version + 1);
+                });
+    }
+
+    @Test
+    @DisplayName("should update task unconditionally, whatever its version")
+    void shouldUpdateTaskUnconditionally() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+
+        Task taskToUpdate = addedTasks.stream().filter(t -> t.name().equals("stofzuigen kamer")).findFirst().orElseThrow();
+        long version = taskToUpdate.versionOption().orElseThrow();
+
+        Task firstUpdate = new Task(
+                taskToUpdate.idOption(),
+                taskToUpdate.name(),
+                "stofzuigen woonkamer",
+                taskToUpdate.targetEndOption(),
+                taskToUpdate.extraInformationOption(),
+                taskToUpdate.closed(),
+                taskToUpdate.versionOption()
+        );
+        Task secondUpdate = new Task(
+                taskToUpdate.idOption(),
+                taskToUpdate.name(),
+                "stofzuigen slaapkamer",
+                taskToUpdate.targetEndOption(),
+                taskToUpdate.extraInformationOption(),
+                true,
+                taskToUpdate.versionOption()
+        );
+
+        taskService.updateTask(firstUpdate);
+        Task task = taskService.updateTaskUnconditionally(secondUpdate);
+
+        assertThat(task)
+                .satisfies(t -> {
+                    assertThat(t.description()).isEqualTo("stofzuigen slaapkamer");
+                    assertThat(t.closed()).isEqualTo(true);
+                    assertThat(t.versionOption()).hasValue(version + 2);
+                });
+        assertThat(taskService.findTask(taskToUpdate.idOption().orElseThrow())).hasValue(task);
+    }
+
+    @Test
+    @DisplayName("should not update task unconditionally that has been deleted in the meantime")
+    void shouldNotUpdateDeletedTaskUnconditionally() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+
+        Task taskToUpdate = addedTasks.stream().filter(t -> t.name().equals("stofzuigen kamer")).findFirst().orElseThrow();
+        long id = taskToUpdate.idOption().orElseThrow();
+
+        taskService.deleteTask(id);
+
+        assertThatThrownBy(() -> taskService.updateTaskUnconditionally(taskToUpdate))
+                .isInstanceOf(TaskNotFoundException.class)
+                .satisfies(e -> assertThat(((TaskNotFoundException) e).getId()).isEqualTo(id));
+    }
+
+    @Test
+    @DisplayName("should not update task that has been deleted in the meantime")
+    void shouldNotUpdateDeletedTask() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+
+        Task taskToUpdate = addedTasks.stream().filter(t -> t.name().equals("stofzuigen kamer")).findFirst().orElseThrow();
+        long id = taskToUpdate.idOption().orElseThrow();
+
+        taskService.deleteTask(id);
+
+        assertThatThrownBy(() -> taskService.updateTask(taskToUpdate))
+                .isInstanceOf(TaskNotFoundException.class)
+                .satisfies(e -> assertThat(((TaskNotFoundException) e).getId()).isEqualTo(id));
+        assertThat(taskService.findTask(id)).isEmpty();
+    }
+
     @Test
     @DisplayName("should delete task")
     void shouldDeleteTask() {
@@ -305,7 +548,10 @@ class TaskServiceTest extends AbstractServiceTest {
         Preconditions.checkArgument(initSize >= 3);
 
         long id = addedTasks.get(1).idOption().orElseThrow();
-        taskService.deleteTask(id);
+        Optional<String> deletedNameOption = taskService.deleteTask(id);
+
+        assertThat(deletedNameOption).contains(addedTasks.get(1).name());
+        assertThat(taskService.deleteTask(id)).isEmpty();
 
         assertThat(
                 entityManager.getEntityManager()
@@ -319,6 +565,46 @@ class TaskServiceTest extends AbstractServiceTest {
         ).hasSize(initSize - 1);
     }
 
+    @Test
+    @DisplayName("should delete tasks by ID, ignoring unknown IDs")
+    void shouldDeleteTasksById() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+        Preconditions.checkArgument(addedTasks.size() == 3);
+
+        Set<String> deletedNames = taskService.deleteTasks(
+                List.of(addedTasks.get(0).idOption().orElseThrow(), addedTasks.get(2).idOption().orElseThrow(), -1L)
+        );
+
+        assertThat(deletedNames).containsExactlyInAnyOrder(addedTasks.get(0).name(), addedTasks.get(2).name());
+        assertThat(
+                entityManager.getEntityManager().createQuery("select t.name from Task t", String.class).getResultList()
+        ).containsExactly("stofzuigen kamer");
+    }
+
+    @Test
+    @DisplayName("should delete tasks matching a filter")
+    void shouldDeleteTasksMatchingFilter() {
+        System.out.printf("PostgreSQL container name: %s%n", postgres.getContainerName());
+
+        List<Task> addedTasks = addSomeTasks();
+        Preconditions.checkArgument(addedTasks.size() == 3);
+
+        long deletedClosedCount = taskService.deleteTasksMatching(
+                new TaskFilter(Optional.of(true), Optional.of(now.plus(3, ChronoUnit.DAYS)))
+        );
+        long deletedOpenCount = taskService.deleteTasksMatching(
+                new TaskFilter(Optional.empty(), Optional.of(now.plus(3, ChronoUnit.DAYS)))
+        );
+
+        assertThat(deletedClosedCount).isEqualTo(1);
+        assertThat(deletedOpenCount).isEqualTo(1);
+        assertThat(
+                entityManager.getEntityManager().createQuery("select t.name from Task t", String.class).getResultList()
+        ).containsExactly("opruimen slaapkamer");
+    }
+
     @Test
     @DisplayName("should delete all tasks")
     void shouldDeleteAllTasks() {
@@ -347,7 +633,8 @@ class TaskServiceTest extends AbstractServiceTest {
                                         "opruimen kamer",
                                         Optional.of(now.plus(1, ChronoUnit.DAYS)),
                                         Optional.empty(),
-                                        true
+                                        true,
+                                        OptionalLong.empty()
                                 )
                         )
                 ).toModel(),
@@ -359,7 +646,8 @@ class TaskServiceTest extends AbstractServiceTest {
                                         "stofzuigen kamer",
                                         Optional.of(now.plus(2, ChronoUnit.DAYS)),
                                         Optional.empty(),
-                                        false
+                                        false,
+                                        OptionalLong.empty()
                                 )
                         )
                 ).toModel(),
@@ -371,7 +659,8 @@ class TaskServiceTest extends AbstractServiceTest {
                                         "opruimen slaapkamer",
                                         Optional.of(now.plus(7, ChronoUnit.DAYS)),
                                         Optional.empty(),
-                                        false
+                                        false,
+                                        OptionalLong.empty()
                                 )
                         )
                 ).toModel()
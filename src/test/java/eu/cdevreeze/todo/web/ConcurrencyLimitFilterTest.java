@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import eu.cdevreeze.todo.web.filter.ConcurrencyLimitFilter;
+import jakarta.servlet.FilterChain;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit test for the ConcurrencyLimitFilter.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class ConcurrencyLimitFilterTest {
+
+    @Nested
+    @DisplayName("limit tests")
+    class LimitTest {
+
+        @Test
+        @DisplayName("should pass requests within the limit, and release their permits afterwards")
+        void shouldPassRequestsWithinLimit() throws Exception {
+            // Given
+            ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(2, Duration.ofMillis(10));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // When
+            filter.doFilter(new MockHttpServletRequest("GET", "/tasks.json"), response, new MockFilterChain());
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+            assertThat(filter.availablePermits()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should reject requests beyond the limit with status 503")
+        void shouldRejectRequestsBeyondLimit() throws Exception {
+            ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10));
+            CountDownLatch requestStarted = new CountDownLatch(1);
+            CountDownLatch requestMayEnd = new CountDownLatch(1);
+
+            try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+                // Given
+                Future<?> slowRequest = executor.submit(() -> {
+                    FilterChain slowChain = (req, res) -> {
+                        requestStarted.countDown();
+                        awaitUninterruptibly(requestMayEnd);
+                    };
+                    filter.doFilter(new MockHttpServletRequest("GET", "/tasks.json"), new MockHttpServletResponse(), slowChain);
+                    return null;
+                });
+                assertThat(requestStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+                // When
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("GET", "/tasks.json"), response, new MockFilterChain());
+
+                // Then
+                assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+                assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+                requestMayEnd.countDown();
+                slowRequest.get(5, TimeUnit.SECONDS);
+                assertThat(filter.availablePermits()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("should not limit actuator requests")
+        void shouldNotLimitActuatorRequests() throws Exception {
+            // Given
+            ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10));
+            MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/tasks.ndjson");
+            asyncRequest.setAsyncSupported(true);
+            filter.doFilter(asyncRequest, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+            assertThat(filter.availablePermits()).isZero();
+
+            // When
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, new MockFilterChain());
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    @Nested
+    @DisplayName("asynchronous request tests")
+    class AsyncRequestTest {
+
+        @Test
+        @DisplayName("should keep the permit of an asynchronous request until it completes")
+        void shouldKeepPermitUntilAsyncCompletion() throws Exception {
+            // Given
+            ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10));
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks.ndjson");
+            request.setAsyncSupported(true);
+
+            // When
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+            // Then
+            assertThat(filter.availablePermits()).isZero();
+
+            request.getAsyncContext().complete();
+            assertThat(filter.availablePermits()).isEqualTo(1);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.service.AddressService;
+import eu.cdevreeze.todo.service.AppointmentService;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.SearchService;
+import eu.cdevreeze.todo.service.TaskService;
+import eu.cdevreeze.todo.web.controller.TodoRestController;
+import eu.cdevreeze.todo.web.messageconverter.MyHttpMessageConvertersConfiguration;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test of the gzip compression of JSON responses by the embedded Tomcat server (see the "server.compression"
+ * properties), for the TodoRestController with mocked services. Tomcat does not compress responses with a strong
+ * ETag, so this test also guards the ETags of the JSON lists staying weak.
+ *
+ * @author Chris de Vreeze
+ */
+@SpringBootTest(
+        classes = ResponseCompressionTest.WebTierConfiguration.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@NullUnmarked
+class ResponseCompressionTest {
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class
+    })
+    @Import({TodoRestController.class, MyHttpMessageConvertersConfiguration.class, WorkloadExecutors.class})
+    static class WebTierConfiguration {
+    }
+
+    @LocalServerPort
+    private int localServerPort;
+
+    @MockitoBean
+    private TaskService taskService;
+
+    @MockitoBean
+    private AddressService addressService;
+
+    @MockitoBean
+    private AppointmentService appointmentService;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @MockitoBean
+    private DataVersionService dataVersionService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void beforeEach() {
+        when(dataVersionService.getVersion(any())).thenReturn("v1");
+    }
+
+    @Test
+    @DisplayName("should gzip a JSON list of more than 2 KB, with a weak ETag")
+    void shouldGzipLargeJsonList() throws Exception {
+        // Given
+        ImmutableList<Task> tasks = tasks(100);
+        when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(tasks, Optional.empty()));
+
+        // When
+        HttpResponse<InputStream> response = getTasks(MediaType.APPLICATION_JSON_VALUE);
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(response.headers().firstValue(HttpHeaders.ETAG)).hasValue("W/\"v1_json\"");
+        String body = gunzip(response.body());
+        assertThat(body.length()).isGreaterThan(2048);
+        assertThat(body).contains("\"opruimen kamer 100\"");
+    }
+
+    @Test
+    @DisplayName("should not gzip a CBOR list, with a weak ETag")
+    void shouldNotGzipCborList() throws Exception {
+        // Given
+        ImmutableList<Task> tasks = tasks(100);
+        when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(tasks, Optional.empty()));
+
+        // When
+        HttpResponse<InputStream> response = getTasks("application/cbor");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+        assertThat(response.headers().firstValue(HttpHeaders.ETAG)).hasValue("W/\"v1_cbor\"");
+        try (InputStream body = response.body()) {
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).contains("opruimen kamer 100");
+        }
+    }
+
+    private HttpResponse<InputStream> getTasks(String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d/tasks.json", localServerPort)))
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static ImmutableList<Task> tasks(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new Task(
+                        OptionalLong.of(i), "opruimen kamer " + i, "opruimen kamer " + i, Optional.empty(), Optional.empty(), false,
+                        OptionalLong.of(0)
+                ))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static String gunzip(InputStream inputStream) throws IOException {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(inputStream)) {
+            return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.SearchHit;
+import eu.cdevreeze.todo.service.SearchService;
+import eu.cdevreeze.todo.web.controller.SearchController;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit test for the SearchController.
+ *
+ * @author Chris de Vreeze
+ */
+@WebMvcTest(SearchController.class)
+@Import(WorkloadExecutors.class)
+@ExtendWith(MockitoExtension.class)
+@NullUnmarked
+class SearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @Nested
+    @DisplayName("GET /search endpoint tests")
+    class SearchTest {
+
+        @Test
+        @DisplayName("should show the search hits")
+        void shouldShowSearchHits() throws Exception {
+            // Given
+            ImmutableList<SearchHit> expectedHits = ImmutableList.of(
+                    new SearchHit(SearchHit.Kind.TASK, 1, "opruimen kamer", "opruimen kamer", 0.6),
+                    new SearchHit(SearchHit.Kind.ADDRESS, 2, "thuis", "0000ZZ thuis", 0.1)
+            );
+            when(searchService.search("opruimen thuis", 20)).thenReturn(expectedHits);
+
+            // When/then
+            performAsync(get("/search").param("q", "opruimen thuis").accept(MediaType.TEXT_HTML))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("search"))
+                    .andExpect(model().attribute("query", "opruimen thuis"))
+                    .andExpect(model().attribute("hits", expectedHits))
+                    .andExpect(content().string(containsString("/updateTask?id=1")))
+                    .andExpect(content().string(containsString("0000ZZ thuis")));
+            verify(searchService, times(1)).search("opruimen thuis", 20);
+        }
+
+        @Test
+        @DisplayName("should show no search hits without query")
+        void shouldShowNoSearchHitsWithoutQuery() throws Exception {
+            // Given
+            when(searchService.search("", 20)).thenReturn(ImmutableList.of());
+
+            // When/then
+            performAsync(get("/search").accept(MediaType.TEXT_HTML))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("search"))
+                    .andExpect(model().attribute("hits", ImmutableList.of()))
+                    .andExpect(content().string(containsString("No results")));
+        }
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+}
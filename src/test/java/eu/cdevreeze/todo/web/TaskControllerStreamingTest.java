@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.service.TaskService;
+import eu.cdevreeze.todo.web.controller.TaskController;
+import eu.cdevreeze.todo.web.workload.LanePermit;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.stringContainsInOrder;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit test for the TaskController, rendering the tasks page while querying it chunk by chunk.
+ *
+ * @author Chris de Vreeze
+ */
+@WebMvcTest(
+        controllers = TaskController.class,
+        properties = {"todo.tasks-page.rendering=streaming", "todo.tasks-page.streaming-chunk-size=2"}
+)
+@Import(WorkloadExecutors.class)
+@ExtendWith(MockitoExtension.class)
+@NullUnmarked
+class TaskControllerStreamingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TaskService taskService;
+
+    @Autowired
+    private WorkloadExecutors workloadExecutors;
+
+    @Nested
+    @DisplayName("GET /tasks endpoint tests")
+    class GetTasksTest {
+
+        @Test
+        @DisplayName("should render a page of tasks chunk by chunk, with a link to the next page")
+        void shouldRenderPageChunkByChunk() throws Exception {
+            // Given
+            when(taskService.findOpenTasks(new PageRequest(Optional.empty(), 2)))
+                    .thenReturn(new Page<>(ImmutableList.of(task(1), task(2)), Optional.of("aWQ6Mg")));
+            when(taskService.findOpenTasks(PageRequest.nextPage("aWQ6Mg", 1)))
+                    .thenReturn(new Page<>(ImmutableList.of(task(3)), Optional.of("aWQ6Mw")));
+
+            // When
+            MvcResult mvcResult = mockMvc.perform(
+                            get("/tasks")
+                                    .param("closed", String.valueOf(false))
+                                    .param("pageSize", "3")
+                                    .accept(MediaType.TEXT_HTML)
+                    )
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            // The first chunk is queried in the UI execution lane, so not necessarily before asyncStarted
+            verify(taskService, timeout(5000).times(1)).findOpenTasks(new PageRequest(Optional.empty(), 2));
+            verifyNoMoreInteractions(taskService);
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("tasks"))
+                    .andExpect(model().attribute("title", "Open tasks"))
+                    .andExpect(model().attributeDoesNotExist("tasks", "nextPageUrl"))
+                    .andExpect(content().string(stringContainsInOrder("task 1", "task 2", "task 3")))
+                    .andExpect(content().string(containsString("/tasks?closed=false&amp;pageToken=aWQ6Mw&amp;pageSize=3")));
+            verify(taskService, times(1)).findOpenTasks(PageRequest.nextPage("aWQ6Mg", 1));
+            verifyNoMoreInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should render the last page of tasks without a link to a next page")
+        void shouldRenderLastPage() throws Exception {
+            // Given
+            when(taskService.findTasks(new PageRequest(Optional.empty(), 2)))
+                    .thenReturn(new Page<>(ImmutableList.of(task(1), task(2)), Optional.of("aWQ6Mg")));
+            when(taskService.findTasks(PageRequest.nextPage("aWQ6Mg", 2)))
+                    .thenReturn(new Page<>(ImmutableList.of(task(3)), Optional.empty()));
+
+            // When
+            MvcResult mvcResult = mockMvc.perform(get("/tasks").param("pageSize", "10").accept(MediaType.TEXT_HTML))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(stringContainsInOrder("task 1", "task 2", "task 3")))
+                    .andExpect(content().string(not(containsString("Next page"))));
+            verify(taskService, times(1)).findTasks(PageRequest.nextPage("aWQ6Mg", 2));
+            assertAllUiLanePermitsFree();
+        }
+
+        @Test
+        @DisplayName("should render a page fitting in one chunk buffered")
+        void shouldRenderSmallPageBuffered() throws Exception {
+            // Given
+            ImmutableList<Task> tasks = ImmutableList.of(task(1), task(2));
+            when(taskService.findTasks(new PageRequest(Optional.empty(), 2))).thenReturn(new Page<>(tasks, Optional.empty()));
+
+            // When
+            MvcResult mvcResult = mockMvc.perform(get("/tasks").param("pageSize", "2").accept(MediaType.TEXT_HTML))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("tasks", tasks))
+                    .andExpect(model().attributeDoesNotExist("taskRows"));
+        }
+
+        @Test
+        @DisplayName("should render the page buffered if no permit of the UI lane is free")
+        void shouldRenderBufferedIfNoLanePermitIsFree() throws Exception {
+            // Given
+            // The UI lane has 4 permits by default, of which the request handling itself takes 1
+            List<LanePermit> heldPermits = Stream.generate(() -> workloadExecutors.tryAcquirePermit(Workload.UI).orElseThrow())
+                    .limit(3)
+                    .toList();
+            ImmutableList<Task> tasks = ImmutableList.of(task(1), task(2), task(3));
+            when(taskService.findTasks(PageRequest.firstPage(10))).thenReturn(new Page<>(tasks, Optional.empty()));
+
+            // When
+            MvcResult mvcResult = mockMvc.perform(get("/tasks").param("pageSize", "10").accept(MediaType.TEXT_HTML))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("tasks", tasks))
+                    .andExpect(model().attributeDoesNotExist("taskRows"));
+            heldPermits.forEach(LanePermit::close);
+            assertAllUiLanePermitsFree();
+        }
+
+        @Test
+        @DisplayName("should fail rendering, and give back the lane permit, if fetching a chunk fails")
+        void shouldFailRenderingIfFetchingChunkFails() throws Exception {
+            // Given
+            when(taskService.findTasks(new PageRequest(Optional.empty(), 2)))
+                    .thenReturn(new Page<>(ImmutableList.of(task(1), task(2)), Optional.of("aWQ6Mg")));
+            when(taskService.findTasks(PageRequest.nextPage("aWQ6Mg", 2)))
+                    .thenThrow(new IllegalStateException("Database unavailable"));
+
+            // When
+            MvcResult mvcResult = mockMvc.perform(get("/tasks").param("pageSize", "10").accept(MediaType.TEXT_HTML))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            assertThatThrownBy(() -> mockMvc.perform(asyncDispatch(mvcResult)))
+                    .hasRootCauseInstanceOf(IllegalStateException.class);
+            assertAllUiLanePermitsFree();
+        }
+    }
+
+    private void assertAllUiLanePermitsFree() {
+        List<LanePermit> permits = Stream.generate(() -> workloadExecutors.tryAcquirePermit(Workload.UI))
+                .limit(4)
+                .flatMap(Optional::stream)
+                .toList();
+        permits.forEach(LanePermit::close);
+        assertThat(permits).hasSize(4);
+    }
+
+    private static Task task(long id) {
+        return new Task(OptionalLong.of(id), "task " + id, "task " + id, Optional.empty(), Optional.empty(), false, OptionalLong.empty());
+    }
+}
@@ -18,9 +18,15 @@ package eu.cdevreeze.todo.web;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.todo.exception.InvalidPageTokenException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
 import eu.cdevreeze.todo.model.Task;
 import eu.cdevreeze.todo.service.TaskService;
 import eu.cdevreeze.todo.web.controller.TaskController;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
 import org.jspecify.annotations.NullUnmarked;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -29,9 +35,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -41,7 +51,11 @@ import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.OptionalLong;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,6 +66,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Chris de Vreeze
  */
 @WebMvcTest(TaskController.class)
+@Import(WorkloadExecutors.class)
 @ExtendWith(MockitoExtension.class)
 @NullUnmarked
 class TaskControllerTest {
@@ -73,16 +88,16 @@ class TaskControllerTest {
         void shouldGetAllTasks() throws Exception {
             // Given
             ImmutableList<Task> expectedTasks = testTasks();
-            when(taskService.findAllTasks()).thenReturn(expectedTasks);
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(expectedTasks, Optional.empty()));
 
             // When/then
-            mockMvc.perform(get("/tasks").accept(MediaType.TEXT_HTML))
+            performAsync(get("/tasks").accept(MediaType.TEXT_HTML))
                     .andExpect(status().isOk())
                     .andExpect(view().name("tasks"))
                     .andExpect(model().attribute("tasks", expectedTasks))
                     .andExpect(model().attribute("title", "Tasks"))
                     .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML));
-            verify(taskService, times(1)).findAllTasks();
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
         }
 
         @Test
@@ -91,16 +106,16 @@ class TaskControllerTest {
             // Given
             ImmutableList<Task> expectedTasks =
                     testTasks().stream().filter(t -> !t.closed()).collect(ImmutableList.toImmutableList());
-            when(taskService.findAllOpenTasks()).thenReturn(expectedTasks);
+            when(taskService.findOpenTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(expectedTasks, Optional.empty()));
 
             // When/then
-            mockMvc.perform(get("/tasks").param("closed", String.valueOf(false)).accept(MediaType.TEXT_HTML))
+            performAsync(get("/tasks").param("closed", String.valueOf(false)).accept(MediaType.TEXT_HTML))
                     .andExpect(status().isOk())
                     .andExpect(view().name("tasks"))
                     .andExpect(model().attribute("tasks", expectedTasks))
                     .andExpect(model().attribute("title", "Open tasks"))
                     .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML));
-            verify(taskService, times(1)).findAllOpenTasks();
+            verify(taskService, times(1)).findOpenTasks(PageRequest.firstPage(100));
         }
 
         @Test
@@ -109,16 +124,61 @@ class TaskControllerTest {
             // Given
             ImmutableList<Task> expectedTasks =
                     testTasks().stream().filter(Task::closed).collect(ImmutableList.toImmutableList());
-            when(taskService.findAllClosedTasks()).thenReturn(expectedTasks);
+            when(taskService.findClosedTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(expectedTasks, Optional.empty()));
 
             // When/then
-            mockMvc.perform(get("/tasks").param("closed", String.valueOf(true)).accept(MediaType.TEXT_HTML))
+            performAsync(get("/tasks").param("closed", String.valueOf(true)).accept(MediaType.TEXT_HTML))
                     .andExpect(status().isOk())
                     .andExpect(view().name("tasks"))
                     .andExpect(model().attribute("tasks", expectedTasks))
                     .andExpect(model().attribute("title", "Closed tasks"))
                     .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML));
-            verify(taskService, times(1)).findAllClosedTasks();
+            verify(taskService, times(1)).findClosedTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should get the next page of open tasks")
+        void shouldGetNextPageOfOpenTasks() throws Exception {
+            // Given
+            ImmutableList<Task> expectedTasks =
+                    testTasks().stream().filter(t -> !t.closed()).limit(1).collect(ImmutableList.toImmutableList());
+            PageRequest pageRequest = PageRequest.nextPage("aWQ6MQ", 1);
+            when(taskService.findOpenTasks(pageRequest)).thenReturn(new Page<>(expectedTasks, Optional.of("aWQ6Mg")));
+
+            // When/then
+            performAsync(
+                            get("/tasks")
+                                    .param("closed", String.valueOf(false))
+                                    .param("pageToken", "aWQ6MQ")
+                                    .param("pageSize", "1")
+                                    .accept(MediaType.TEXT_HTML)
+                    )
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("tasks"))
+                    .andExpect(model().attribute("tasks", expectedTasks))
+                    .andExpect(model().attribute("nextPageUrl", "/tasks?closed=false&pageToken=aWQ6Mg&pageSize=1"))
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML));
+            verify(taskService, times(1)).findOpenTasks(pageRequest);
+        }
+
+        @Test
+        @DisplayName("should return status 400 for an invalid page token")
+        void shouldRejectInvalidPageToken() throws Exception {
+            // Given
+            when(taskService.findTasks(PageRequest.nextPage("bogus", 100))).thenThrow(new InvalidPageTokenException("bogus"));
+
+            // When/then
+            performAsync(get("/tasks").param("pageToken", "bogus").accept(MediaType.TEXT_HTML))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("should return status 400 for a page size that is not positive")
+        void shouldRejectNonPositivePageSize() throws Exception {
+            // When/then
+            mockMvc.perform(get("/tasks").param("pageSize", "0").accept(MediaType.TEXT_HTML))
+                    .andExpect(status().isBadRequest());
+            verifyNoInteractions(taskService);
         }
     }
 
@@ -156,12 +216,13 @@ class TaskControllerTest {
                     "krant opzeggen",
                     Optional.of(expectedInstant),
                     Optional.empty(),
-                    false
+                    false,
+                    OptionalLong.empty()
             );
             when(taskService.addTask(any(Task.class))).thenReturn(expectedTask);
 
             // When/then
-            mockMvc.perform(
+            performAsync(
                             post("/newTask")
                                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                                     .param("name", "krant opzeggen")
@@ -188,7 +249,7 @@ class TaskControllerTest {
             when(taskService.findTask(taskId)).thenReturn(Optional.of(expectedOldTask));
 
             // When/then
-            mockMvc.perform(get("/updateTask").param("id", String.valueOf(taskId)).accept(MediaType.TEXT_HTML))
+            performAsync(get("/updateTask").param("id", String.valueOf(taskId)).accept(MediaType.TEXT_HTML))
                     .andExpect(status().isOk())
                     .andExpect(view().name("updateTask"))
                     .andExpect(model().attributeExists("task"))
@@ -219,12 +280,13 @@ class TaskControllerTest {
                     expectedOldTask.description(),
                     Optional.of(expectedInstant),
                     Optional.of("Ruim op tijd gedaan"),
-                    true
+                    true,
+                    OptionalLong.of(3)
             );
-            when(taskService.updateTask(expectedNewTask)).thenReturn(expectedNewTask);
+            when(taskService.updateTask(expectedNewTask)).thenReturn(expectedNewTask.withVersion(4));
 
             // When/then
-            mockMvc.perform(
+            performAsync(
                             post("/updateTask")
                                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                                     .param("id", String.valueOf(taskId))
@@ -233,11 +295,110 @@ class TaskControllerTest {
                                     .param("targetEnd", localDateTime.toString())
                                     .param("extraInformation", "Ruim op tijd gedaan")
                                     .param("closed", "true")
+                                    .param("version", "3")
                     )
                     .andExpect(status().is3xxRedirection())
                     .andExpect(view().name("redirect:/tasks"));
             verify(taskService, times(1)).updateTask(eq(expectedNewTask));
         }
+
+        @Test
+        @DisplayName("should show the current task, with status 409, if the task has been updated in the meantime")
+        void shouldShowCurrentTaskOnVersionConflict() throws Exception {
+            // Given
+            long taskId = 2;
+            Task currentTask = testTasks().get(1).withVersion(4);
+            Preconditions.checkArgument(currentTask.idOption().equals(OptionalLong.of(taskId)));
+
+            Task outdatedTask = new Task(
+                    currentTask.idOption(),
+                    currentTask.name(),
+                    currentTask.description(),
+                    Optional.empty(),
+                    Optional.of("Ruim op tijd gedaan"),
+                    true,
+                    OptionalLong.of(3)
+            );
+            when(taskService.updateTask(outdatedTask)).thenThrow(new TaskVersionConflictException(outdatedTask, 4));
+            when(taskService.findTask(taskId)).thenReturn(Optional.of(currentTask));
+
+            // When/then
+            performAsync(
+                            post("/updateTask")
+                                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                    .param("id", String.valueOf(taskId))
+                                    .param("name", currentTask.name())
+                                    .param("description", currentTask.description())
+                                    .param("extraInformation", "Ruim op tijd gedaan")
+                                    .param("closed", "true")
+                                    .param("version", "3")
+                    )
+                    .andExpect(status().isConflict())
+                    .andExpect(view().name("updateTask"))
+                    .andExpect(model().attribute("versionConflict", true))
+                    .andExpect(model().attribute("task", hasProperty("version", is(4L))))
+                    .andExpect(content().string(containsString("has been updated by someone else")));
+            verify(taskService, times(1)).updateTask(eq(outdatedTask));
+            verify(taskService, times(1)).findTask(taskId);
+        }
+
+        @Test
+        @DisplayName("should show the tasks page with a message if the task has been deleted in the meantime")
+        void shouldRedirectOnDeletedTask() throws Exception {
+            // Given
+            long taskId = 2;
+            Task deletedTask = new Task(
+                    OptionalLong.of(taskId), "opruimen kamer (2)", "opruimen kamer (2)", Optional.empty(), Optional.empty(), false,
+                    OptionalLong.of(3)
+            );
+
+            when(taskService.updateTask(deletedTask)).thenThrow(new TaskNotFoundException(taskId));
+
+            // When/then
+            performAsync(
+                            post("/updateTask")
+                                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                    .param("id", String.valueOf(taskId))
+                                    .param("name", deletedTask.name())
+                                    .param("description", deletedTask.description())
+                                    .param("closed", "false")
+                                    .param("version", "3")
+                    )
+                    .andExpect(status().is3xxRedirection())
+                    .andExpect(view().name("redirect:/tasks"))
+                    .andExpect(flash().attribute("message", containsString("Task 2 has been deleted")));
+            verify(taskService, times(1)).updateTask(eq(deletedTask));
+        }
+
+        @Test
+        @DisplayName("should show the tasks page with a message if the task has been deleted after a concurrent update")
+        void shouldRedirectOnVersionConflictOfDeletedTask() throws Exception {
+            // Given
+            long taskId = 2;
+            Task outdatedTask = new Task(
+                    OptionalLong.of(taskId), "opruimen kamer (2)", "opruimen kamer (2)", Optional.empty(), Optional.empty(), false,
+                    OptionalLong.of(3)
+            );
+
+            when(taskService.updateTask(outdatedTask)).thenThrow(new TaskVersionConflictException(outdatedTask, 4));
+            when(taskService.findTask(taskId)).thenReturn(Optional.empty());
+
+            // When/then
+            performAsync(
+                            post("/updateTask")
+                                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                    .param("id", String.valueOf(taskId))
+                                    .param("name", outdatedTask.name())
+                                    .param("description", outdatedTask.description())
+                                    .param("closed", "false")
+                                    .param("version", "3")
+                    )
+                    .andExpect(status().is3xxRedirection())
+                    .andExpect(view().name("redirect:/tasks"))
+                    .andExpect(flash().attribute("message", containsString("Task 2 has been deleted")));
+            verify(taskService, times(1)).updateTask(eq(outdatedTask));
+            verify(taskService, times(1)).findTask(taskId);
+        }
     }
 
     private ImmutableList<Task> testTasks() {
@@ -248,7 +409,8 @@ class TaskControllerTest {
                         "opruimen kamer (1)",
                         Optional.of(now.plus(-100, ChronoUnit.DAYS)),
                         Optional.empty(),
-                        true
+                        true,
+                        OptionalLong.empty()
                 ),
                 new Task(
                         OptionalLong.of(2),
@@ -256,7 +418,8 @@ class TaskControllerTest {
                         "opruimen kamer (2)",
                         Optional.of(now.plus(1, ChronoUnit.DAYS)),
                         Optional.empty(),
-                        false
+                        false,
+                        OptionalLong.empty()
                 ),
                 new Task(
                         OptionalLong.of(3),
@@ -264,8 +427,20 @@ class TaskControllerTest {
                         "stofzuigen kamer (1)",
                         Optional.of(now.plus(2, ChronoUnit.DAYS)),
                         Optional.empty(),
-                        false
+                        false,
+                        OptionalLong.empty()
                 )
         );
     }
+
+    /**
+     * Performs the request, which is expected to be handled asynchronously, and then the async dispatch,
+     * returning the result of the latter.
+     */
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
 }
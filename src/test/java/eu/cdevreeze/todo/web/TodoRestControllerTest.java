@@ -20,14 +20,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.BooleanNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.todo.exception.InvalidPageTokenException;
+import eu.cdevreeze.todo.exception.TaskNotFoundException;
+import eu.cdevreeze.todo.exception.TaskVersionConflictException;
+import eu.cdevreeze.todo.jdbc.StatementCounter;
+import eu.cdevreeze.todo.model.Page;
+import eu.cdevreeze.todo.model.PageRequest;
+import eu.cdevreeze.todo.model.SearchHit;
 import eu.cdevreeze.todo.model.Task;
+import eu.cdevreeze.todo.model.TaskAdditionResult;
+import eu.cdevreeze.todo.model.TaskFilter;
 import eu.cdevreeze.todo.service.AddressService;
 import eu.cdevreeze.todo.service.AppointmentService;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.SearchService;
 import eu.cdevreeze.todo.service.TaskService;
 import eu.cdevreeze.todo.web.controller.TodoRestController;
+import eu.cdevreeze.todo.web.messageconverter.MyHttpMessageConvertersConfiguration;
+import eu.cdevreeze.todo.web.statementbudget.StatementBudgetInterceptor;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -35,17 +54,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 import org.springframework.test.web.servlet.assertj.MvcTestResult;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -57,6 +84,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Chris de Vreeze
  */
 @WebMvcTest(TodoRestController.class)
+@Import({MyHttpMessageConvertersConfiguration.class, WorkloadExecutors.class})
 @ExtendWith(MockitoExtension.class)
 @NullUnmarked
 class TodoRestControllerTest {
@@ -73,6 +101,17 @@ class TodoRestControllerTest {
     @MockitoBean
     private AppointmentService appointmentService;
 
+    @MockitoBean
+    private SearchService searchService;
+
+    @MockitoBean
+    private DataVersionService dataVersionService;
+
+    @BeforeEach
+    void beforeEach() {
+        when(dataVersionService.getVersion(any())).thenReturn("v1");
+    }
+
     @Nested
     @DisplayName("GET /tasks.json endpoint tests")
     class GetTasksTest {
@@ -85,7 +124,7 @@ class TodoRestControllerTest {
             MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
 
             // Given
-            when(taskService.findAllTasks()).thenReturn(testTasks());
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(testTasks(), Optional.empty()));
 
             // When
             MvcTestResult mvcTestResult = mockMvcTester
@@ -100,7 +139,7 @@ class TodoRestControllerTest {
                     .hasStatus(HttpStatus.OK)
                     .hasContentType(MediaType.APPLICATION_JSON)
                     .matches(content().json(expectedTasksJsonString()));
-            verify(taskService, times(1)).findAllTasks();
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
         }
 
         @Test
@@ -109,8 +148,11 @@ class TodoRestControllerTest {
             MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
 
             // Given
-            when(taskService.findAllOpenTasks()).thenReturn(
-                    testTasks().stream().filter(t -> !t.closed()).collect(ImmutableList.toImmutableList())
+            when(taskService.findOpenTasks(PageRequest.firstPage(100))).thenReturn(
+                    new Page<>(
+                            testTasks().stream().filter(t -> !t.closed()).collect(ImmutableList.toImmutableList()),
+                            Optional.empty()
+                    )
             );
 
             // When
@@ -127,7 +169,7 @@ class TodoRestControllerTest {
                     .hasStatus(HttpStatus.OK)
                     .hasContentType(MediaType.APPLICATION_JSON)
                     .matches(content().json(expectedOpenTasksJsonString()));
-            verify(taskService, times(1)).findAllOpenTasks();
+            verify(taskService, times(1)).findOpenTasks(PageRequest.firstPage(100));
         }
 
         @Test
@@ -136,8 +178,11 @@ class TodoRestControllerTest {
             MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
 
             // Given
-            when(taskService.findAllClosedTasks()).thenReturn(
-                    testTasks().stream().filter(Task::closed).collect(ImmutableList.toImmutableList())
+            when(taskService.findClosedTasks(PageRequest.firstPage(100))).thenReturn(
+                    new Page<>(
+                            testTasks().stream().filter(Task::closed).collect(ImmutableList.toImmutableList()),
+                            Optional.empty()
+                    )
             );
 
             // When
@@ -154,7 +199,103 @@ class TodoRestControllerTest {
                     .hasStatus(HttpStatus.OK)
                     .hasContentType(MediaType.APPLICATION_JSON)
                     .matches(content().json(expectedClosedTasksJsonString()));
-            verify(taskService, times(1)).findAllClosedTasks();
+            verify(taskService, times(1)).findClosedTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should get a page of tasks with a link to the next page")
+        void shouldGetPageOfTasksWithNextPageLink() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(3))).thenReturn(new Page<>(testTasks(), Optional.of("aWQ6Mw")));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .param("pageSize", "3")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_JSON)
+                    .hasHeader(HttpHeaders.LINK, "<http://localhost/tasks.json?pageToken=aWQ6Mw&pageSize=3>; rel=\"next\"")
+                    .matches(content().json(expectedTasksJsonString()));
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(3));
+        }
+
+        @Test
+        @DisplayName("should get all tasks as Smile if asked for")
+        void shouldGetAllTasksAsSmile() throws Exception {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+            MediaType smile = MediaType.parseMediaType(MyHttpMessageConvertersConfiguration.APPLICATION_SMILE_VALUE);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(testTasks(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(smile)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(smile);
+            assertThat(new SmileMapper().readTree(mvcTestResult.getResponse().getContentAsByteArray()))
+                    .isEqualTo(expectedTasksJsonArray());
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should get all tasks as CBOR if asked for")
+        void shouldGetAllTasksAsCbor() throws Exception {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(testTasks(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(MediaType.APPLICATION_CBOR)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_CBOR);
+            assertThat(new CBORMapper().readTree(mvcTestResult.getResponse().getContentAsByteArray()))
+                    .isEqualTo(expectedTasksJsonArray());
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should get all tasks as JSON if any media type is accepted")
+        void shouldGetAllTasksAsJsonByDefault() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(testTasks(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(MediaType.ALL)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_JSON)
+                    .matches(content().json(expectedTasksJsonString()));
         }
 
         private ImmutableList<Task> testTasks() {
@@ -165,7 +306,8 @@ class TodoRestControllerTest {
                             "opruimen kamer (1)",
                             Optional.of(now.plus(-100, ChronoUnit.DAYS)),
                             Optional.empty(),
-                            true
+                            true,
+                            OptionalLong.of(2)
                     ),
                     new Task(
                             OptionalLong.of(2),
@@ -173,7 +315,8 @@ class TodoRestControllerTest {
                             "opruimen kamer (2)",
                             Optional.of(now.plus(1, ChronoUnit.DAYS)),
                             Optional.empty(),
-                            false
+                            false,
+                            OptionalLong.of(0)
                     ),
                     new Task(
                             OptionalLong.of(3),
@@ -181,7 +324,8 @@ class TodoRestControllerTest {
                             "stofzuigen kamer (1)",
                             Optional.of(now.plus(2, ChronoUnit.DAYS)),
                             Optional.empty(),
-                            false
+                            false,
+                            OptionalLong.of(0)
                     )
             );
         }
@@ -197,6 +341,7 @@ class TodoRestControllerTest {
             task1Json.put("targetEndOption", now.plus(-100, ChronoUnit.DAYS).toString());
             task1Json.putNull("extraInformationOption");
             task1Json.put("closed", true);
+            task1Json.put("versionOption", 2);
             result.add(task1Json);
 
             ObjectNode task2Json = objectMapper.createObjectNode();
@@ -206,6 +351,7 @@ class TodoRestControllerTest {
             task2Json.put("targetEndOption", now.plus(1, ChronoUnit.DAYS).toString());
             task2Json.putNull("extraInformationOption");
             task2Json.put("closed", false);
+            task2Json.put("versionOption", 0);
             result.add(task2Json);
 
             ObjectNode task3Json = objectMapper.createObjectNode();
@@ -215,6 +361,7 @@ class TodoRestControllerTest {
             task3Json.put("targetEndOption", now.plus(2, ChronoUnit.DAYS).toString());
             task3Json.putNull("extraInformationOption");
             task3Json.put("closed", false);
+            task3Json.put("versionOption", 0);
             result.add(task3Json);
 
             Preconditions.checkArgument(ImmutableList.copyOf(result.elements()).size() == 3);
@@ -238,5 +385,873 @@ class TodoRestControllerTest {
             Preconditions.checkArgument(ImmutableList.copyOf(result.elements()).size() == 1);
             return result.toPrettyString();
         }
+
+        @Test
+        @DisplayName("should return status 400 for an invalid page token")
+        void shouldRejectInvalidPageToken() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.nextPage("bogus", 100))).thenThrow(new InvalidPageTokenException("bogus"));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .param("pageToken", "bogus")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        @DisplayName("should return status 400 for a page size that is not positive")
+        void shouldRejectNonPositivePageSize() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .param("pageSize", "0")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.BAD_REQUEST);
+            verifyNoInteractions(taskService);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /tasks.ndjson endpoint tests")
+    class ExportTasksTest {
+
+        @Test
+        @DisplayName("should export all tasks as newline-delimited JSON")
+        void shouldExportAllTasks() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            Instant targetEnd = Instant.parse("2025-09-30T00:00:00Z");
+            ImmutableList<Task> tasks = ImmutableList.of(
+                    new Task(OptionalLong.of(1), "opruimen kamer", "opruimen kamer", Optional.of(targetEnd), Optional.empty(), true, OptionalLong.empty()),
+                    new Task(OptionalLong.of(2), "stofzuigen kamer", "stofzuigen kamer", Optional.empty(), Optional.empty(), false, OptionalLong.empty())
+            );
+            doAnswer(invocation -> {
+                Consumer<? super Task> taskConsumer = invocation.getArgument(0);
+                tasks.forEach(taskConsumer);
+                return null;
+            }).when(taskService).forEachTask(any());
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.ndjson")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_NDJSON)
+                    .body()
+                    .asString()
+                    .satisfies(body -> {
+                        assertThat(body.lines().toList()).hasSize(2);
+                        assertThat(body.lines().toList().get(0))
+                                .contains("\"idOption\":1")
+                                .contains("\"name\":\"opruimen kamer\"")
+                                .contains("\"targetEndOption\":\"2025-09-30T00:00:00Z\"");
+                        assertThat(body.lines().toList().get(1))
+                                .contains("\"idOption\":2")
+                                .contains("\"name\":\"stofzuigen kamer\"");
+                        assertThat(body).endsWith("\n");
+                    });
+            verify(taskService, times(1)).forEachTask(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /tasks/batch.json endpoint tests")
+    class PostTaskBatchTest {
+
+        @Test
+        @DisplayName("should add a batch of tasks, with a result per task")
+        void shouldAddTaskBatch() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            Task newTask1 = Task.newTask("opruimen kamer", "opruimen kamer", Optional.empty(), Optional.empty(), false);
+            Task newTask2 = Task.newTask("stofzuigen kamer", "stofzuigen kamer", Optional.empty(), Optional.empty(), false);
+            when(taskService.addTasks(List.of(newTask1, newTask2))).thenReturn(
+                    ImmutableList.of(
+                            new TaskAdditionResult(
+                                    new Task(OptionalLong.of(51), newTask1.name(), newTask1.description(), Optional.empty(), Optional.empty(), false, OptionalLong.empty()),
+                                    TaskAdditionResult.Status.ADDED
+                            ),
+                            new TaskAdditionResult(newTask2, TaskAdditionResult.Status.NAME_EXISTS)
+                    )
+            );
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .post()
+                    .uri("/tasks/batch.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content("""
+                            [
+                              { "name": "opruimen kamer", "description": "opruimen kamer", "targetEndOption": null, "extraInformationOption": null, "closed": false },
+                              { "name": "stofzuigen kamer", "description": "stofzuigen kamer", "targetEndOption": null, "extraInformationOption": null, "closed": false }
+                            ]
+                            """)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_JSON)
+                    .matches(content().json("""
+                            [
+                              { "task": { "idOption": 51, "name": "opruimen kamer" }, "status": "ADDED" },
+                              { "task": { "idOption": null, "name": "stofzuigen kamer" }, "status": "NAME_EXISTS" }
+                            ]
+                            """));
+            verify(taskService, times(1)).addTasks(List.of(newTask1, newTask2));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET and PUT /tasks/{id}.json endpoint tests")
+    class PutTaskTest {
+
+        private static final String TASK_UPDATE_JSON = """
+                {
+                  "idOption": 51,
+                  "name": "opruimen kamer",
+                  "description": "opruimen kamer",
+                  "targetEndOption": null,
+                  "extraInformationOption": "ook onder het bed",
+                  "closed": true,
+                  "versionOption": 3
+                }
+                """;
+
+        private final Task taskUpdate = new Task(
+                OptionalLong.of(51), "opruimen kamer", "opruimen kamer", Optional.empty(), Optional.of("ook onder het bed"), true,
+                OptionalLong.of(3)
+        );
+
+        @Test
+        @DisplayName("should update a task, returning the new version as ETag")
+        void shouldUpdateTask() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTask(taskUpdate)).thenReturn(taskUpdate.withVersion(4));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "\"4\"")
+                    .matches(content().json("""
+                            { "idOption": 51, "name": "opruimen kamer", "closed": true, "versionOption": 4 }
+                            """));
+            verify(taskService, times(1)).updateTask(taskUpdate);
+        }
+
+        @Test
+        @DisplayName("should take the expected version from the If-Match header, if any")
+        void shouldUpdateTaskIfMatch() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTask(taskUpdate.withVersion(7))).thenReturn(taskUpdate.withVersion(8));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "\"7\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "\"8\"");
+            verify(taskService, times(1)).updateTask(taskUpdate.withVersion(7));
+        }
+
+        @Test
+        @DisplayName("should return status 409 if the task version in the body is outdated")
+        void shouldReturnConflictForOutdatedVersion() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTask(taskUpdate)).thenThrow(new TaskVersionConflictException(taskUpdate, 4));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.CONFLICT);
+        }
+
+        @Test
+        @DisplayName("should return status 412 if the task version in the If-Match header is outdated")
+        void shouldReturnPreconditionFailedForOutdatedIfMatch() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTask(taskUpdate)).thenThrow(new TaskVersionConflictException(taskUpdate, 4));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.PRECONDITION_FAILED);
+        }
+
+        @Test
+        @DisplayName("should return status 428 if no task version is given")
+        void shouldRequireVersion() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "idOption": 51, "name": "opruimen kamer", "description": "opruimen kamer", "closed": true }
+                            """)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.PRECONDITION_REQUIRED);
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should return status 412 if the If-Match header is not a task version")
+        void shouldNotMatchOtherIfMatch() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "\"v1\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.PRECONDITION_FAILED);
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should return status 412 if the If-Match header holds a weak ETag")
+        void shouldNotMatchWeakIfMatch() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.PRECONDITION_FAILED);
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should update the current version of the task for If-Match header \"*\"")
+        void shouldUpdateTaskIfMatchAny() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTaskUnconditionally(taskUpdate)).thenReturn(taskUpdate.withVersion(6));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "\"6\"");
+            verify(taskService, times(1)).updateTaskUnconditionally(taskUpdate);
+            verify(taskService, never()).findTask(anyLong());
+            verify(taskService, never()).updateTask(any());
+        }
+
+        @Test
+        @DisplayName("should return status 412 for If-Match header \"*\" if the task does not exist")
+        void shouldNotMatchAnyForMissingTask() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTaskUnconditionally(taskUpdate)).thenThrow(new TaskNotFoundException(51));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.PRECONDITION_FAILED);
+            verify(taskService, times(1)).updateTaskUnconditionally(taskUpdate);
+        }
+
+        @Test
+        @DisplayName("should return status 404 if the task to update does not exist")
+        void shouldReturnNotFoundForMissingTask() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.updateTask(taskUpdate)).thenThrow(new TaskNotFoundException(51));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/51.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("should return status 400 if the task ID in the body differs from the one in the URL")
+        void shouldRejectOtherTaskId() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .put()
+                    .uri("/tasks/52.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(TASK_UPDATE_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.BAD_REQUEST);
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should return a task, with its version as ETag")
+        void shouldFindTask() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTask(51)).thenReturn(Optional.of(taskUpdate));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks/51.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "\"3\"")
+                    .matches(content().json("""
+                            { "idOption": 51, "name": "opruimen kamer", "closed": true, "versionOption": 3 }
+                            """));
+        }
+
+        @Test
+        @DisplayName("should return status 404 if the task does not exist")
+        void shouldNotFindMissingTask() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTask(51)).thenReturn(Optional.empty());
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks/51.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @Nested
+    @DisplayName("DELETE /tasks/batch.json and /tasks/matching.json endpoint tests")
+    class DeleteTasksTest {
+
+        @Test
+        @DisplayName("should delete a batch of tasks by ID, returning the number of deleted tasks")
+        void shouldDeleteTasksById() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.deleteTasks(List.of(11L, 12L, 13L))).thenReturn(ImmutableSet.of("opruimen kamer", "stofzuigen kamer"));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .delete()
+                    .uri("/tasks/batch.json")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content("[11, 12, 13]")
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .matches(content().json("2"));
+            verify(taskService, times(1)).deleteTasks(List.of(11L, 12L, 13L));
+        }
+
+        @Test
+        @DisplayName("should delete the tasks matching a filter, returning the number of deleted tasks")
+        void shouldDeleteTasksMatchingFilter() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            Instant targetEndBefore = Instant.parse("2025-01-01T00:00:00Z");
+            TaskFilter filter = new TaskFilter(Optional.of(true), Optional.of(targetEndBefore));
+            when(taskService.deleteTasksMatching(filter)).thenReturn(250L);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .delete()
+                    .uri("/tasks/matching.json")
+                    .param("closed", "true")
+                    .param("targetEndBefore", targetEndBefore.toString())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .matches(content().json("250"));
+            verify(taskService, times(1)).deleteTasksMatching(filter);
+        }
+
+        @Test
+        @DisplayName("should not delete all tasks if no filter is given")
+        void shouldNotDeleteWithoutFilter() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .delete()
+                    .uri("/tasks/matching.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.BAD_REQUEST);
+            verifyNoInteractions(taskService);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /search.json endpoint tests")
+    class SearchTest {
+
+        @Test
+        @DisplayName("should return the search hits, best hits first")
+        void shouldReturnSearchHits() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(searchService.search("opruimen", 20)).thenReturn(
+                    ImmutableList.of(
+                            new SearchHit(SearchHit.Kind.TASK, 1, "opruimen kamer", "opruimen kamer", 0.6),
+                            new SearchHit(SearchHit.Kind.APPOINTMENT, 2, "schuur", "opruimen schuur", 0.1)
+                    )
+            );
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/search.json")
+                    .param("q", "opruimen")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_JSON)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v1_v1_v1_json\"")
+                    .matches(content().json("""
+                            [
+                              { "kind": "TASK", "id": 1, "name": "opruimen kamer", "summary": "opruimen kamer" },
+                              { "kind": "APPOINTMENT", "id": 2, "name": "schuur", "summary": "opruimen schuur" }
+                            ]
+                            """));
+            verify(searchService, times(1)).search("opruimen", 20);
+        }
+
+        @Test
+        @DisplayName("should not return more search hits than the maximum limit")
+        void shouldCapSearchLimit() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(searchService.search("kamer", 100)).thenReturn(ImmutableList.of());
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/search.json")
+                    .param("q", "kamer")
+                    .param("limit", "100000")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .matches(content().json("[]"));
+            verify(searchService, times(1)).search("kamer", 100);
+        }
+
+        @Test
+        @DisplayName("should return status 400 for a limit that is not positive")
+        void shouldRejectNonPositiveLimit() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/search.json")
+                    .param("q", "opruimen")
+                    .param("limit", "-1")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.BAD_REQUEST);
+            verifyNoInteractions(searchService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Conditional GET tests")
+    class ConditionalGetTest {
+
+        @Test
+        @DisplayName("should return an ETag with the tasks")
+        void shouldReturnETag() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(ImmutableList.of(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v1_json\"")
+                    .hasHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should return 304 Not Modified for unchanged tasks, without querying")
+        void shouldReturnNotModifiedForUnchangedTasks() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1_json\"")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.NOT_MODIFIED)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v1_json\"")
+                    .hasHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            assertThat(mvcTestResult.getResponse().getContentLength()).isZero();
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should return all tasks if they have changed")
+        void shouldReturnChangedTasks() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(dataVersionService.getVersion(DataVersionService.DataSet.TASKS)).thenReturn("v2");
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(ImmutableList.of(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1_json\"")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v2_json\"");
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should return 304 Not Modified for unchanged appointments and addresses")
+        void shouldReturnNotModifiedForUnchangedAppointments() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/appointments.json")
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1_v1_json\"")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.NOT_MODIFIED);
+            verifyNoInteractions(appointmentService);
+        }
+
+        @Test
+        @DisplayName("should return an ETag per representation, so the JSON ETag does not match the CBOR representation")
+        void shouldReturnETagPerRepresentation() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(ImmutableList.of(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1_json\"")
+                    .accept(MediaType.APPLICATION_CBOR)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_CBOR)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v1_cbor\"");
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+
+        @Test
+        @DisplayName("should return the ETag of the preferred representation")
+        void shouldReturnETagOfPreferredRepresentation() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1_x-jackson-smile\"")
+                    .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile")
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.NOT_MODIFIED);
+            verifyNoInteractions(taskService);
+        }
+
+        @Test
+        @DisplayName("should return the ETag of the most specific accepted representation")
+        void shouldReturnETagOfMostSpecificRepresentation() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenReturn(new Page<>(ImmutableList.of(), Optional.empty()));
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .header(HttpHeaders.ACCEPT, "*/*, application/cbor")
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.OK)
+                    .hasContentType(MediaType.APPLICATION_CBOR)
+                    .hasHeader(HttpHeaders.ETAG, "W/\"v1_cbor\"");
+            verify(taskService, times(1)).findTasks(PageRequest.firstPage(100));
+        }
+    }
+
+    @Nested
+    @DisplayName("SQL statement budget tests")
+    class StatementBudgetTest {
+
+        @Autowired
+        private RequestMappingHandlerMapping handlerMapping;
+
+        @Autowired
+        private StatementBudgetInterceptor statementBudgetInterceptor;
+
+        @Test
+        @DisplayName("should have the expected statement budget for every endpoint")
+        void shouldHaveStatementBudgetForEveryEndpoint() {
+            // When
+            Map<String, Integer> budgets = handlerMapping.getHandlerMethods().entrySet().stream()
+                    .filter(entry -> entry.getValue().getBeanType().equals(TodoRestController.class))
+                    .collect(Collectors.toMap(
+                            entry -> entry.getKey().getMethodsCondition().getMethods().iterator().next() + " " +
+                                    entry.getKey().getPatternValues().iterator().next(),
+                            entry -> statementBudgetInterceptor.maxStatements(entry.getValue())
+                    ));
+
+            // Then
+            assertThat(budgets).containsExactlyInAnyOrderEntriesOf(Map.ofEntries(
+                    Map.entry("GET /tasks.json", 10),
+                    Map.entry("GET /tasks.ndjson", 10),
+                    Map.entry("POST /tasks.json", 10),
+                    Map.entry("GET /tasks/{id}.json", 10),
+                    Map.entry("PUT /tasks/{id}.json", 10),
+                    Map.entry("POST /tasks/batch.json", 1000),
+                    Map.entry("DELETE /tasks.json", 10),
+                    Map.entry("DELETE /tasks/batch.json", 100),
+                    Map.entry("DELETE /tasks/matching.json", 10),
+                    Map.entry("GET /addresses.json", 10),
+                    Map.entry("GET /addresses.ndjson", 10),
+                    Map.entry("POST /addresses.json", 10),
+                    Map.entry("GET /appointments.json", 10),
+                    Map.entry("GET /appointments.ndjson", 10),
+                    Map.entry("POST /appointments.json", 10),
+                    Map.entry("GET /search.json", 10)
+            ));
+        }
+
+        @Test
+        @DisplayName("should count the statements executed in the execution lane against the budget of the request")
+        void shouldCountStatementsOfRequest() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(taskService.findTasks(PageRequest.firstPage(100))).thenAnswer(invocation -> {
+                StatementCounter counter = StatementCounter.current().orElseThrow();
+                counter.recordStatement("select te1_0.id from task te1_0 where te1_0.id>? fetch first ? rows only");
+                return new Page<>(ImmutableList.of(), Optional.empty());
+            });
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.OK);
+            assertThat(mvcTestResult.getRequest().getAttribute(StatementBudgetInterceptor.STATEMENT_COUNTER_ATTRIBUTE))
+                    .asInstanceOf(InstanceOfAssertFactories.type(StatementCounter.class))
+                    .satisfies(counter -> {
+                        assertThat(counter.getMaxStatements()).isEqualTo(10);
+                        assertThat(counter.getStatementCount()).isEqualTo(1);
+                        assertThat(counter.isBudgetExceeded()).isFalse();
+                    });
+            assertThat(StatementCounter.current()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should only warn about exceeding the budget, by default")
+        void shouldWarnAboutExceedingBudget() {
+            MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+            // Given
+            when(appointmentService.findAppointmentsBetween(any(), any())).thenAnswer(invocation -> {
+                StatementCounter counter = StatementCounter.current().orElseThrow();
+                counter.recordStatement("select ae1_0.id, ae1_0.address_id from appointment ae1_0");
+                // Loading the address of each appointment separately
+                IntStream.range(0, 20).forEach(i -> counter.recordStatement("select ae1_0.id from address ae1_0 where ae1_0.id=?"));
+                return ImmutableList.of();
+            });
+
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/appointments.json?start=2025-01-01T00:00:00Z&end=2026-01-01T00:00:00Z")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult).hasStatus(HttpStatus.OK);
+            assertThat(mvcTestResult.getRequest().getAttribute(StatementBudgetInterceptor.STATEMENT_COUNTER_ATTRIBUTE))
+                    .asInstanceOf(InstanceOfAssertFactories.type(StatementCounter.class))
+                    .satisfies(counter -> {
+                        assertThat(counter.getStatementCount()).isEqualTo(21);
+                        assertThat(counter.isBudgetExceeded()).isTrue();
+                        assertThat(counter.getStatementCounts())
+                                .containsEntry("select ae1_0.id from address ae1_0 where ae1_0.id=?", 20L);
+                    });
+        }
     }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import eu.cdevreeze.todo.web.workload.LanePermit;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit test for the WorkloadExecutors, each with 1 thread and a queue capacity of 1, both with platform threads
+ * and with virtual threads.
+ *
+ * @author Chris de Vreeze
+ */
+@NullUnmarked
+class WorkloadExecutorsTest {
+
+    abstract class LaneTest {
+
+        protected WorkloadExecutors workloadExecutors;
+        protected CountDownLatch exportsMayEnd;
+
+        protected abstract boolean virtualThreads();
+
+        @BeforeEach
+        void beforeEach() {
+            this.workloadExecutors = new WorkloadExecutors(1, 1, 1, 1, 1, 1, virtualThreads());
+            this.exportsMayEnd = new CountDownLatch(1);
+        }
+
+        @AfterEach
+        void afterEach() {
+            exportsMayEnd.countDown();
+            workloadExecutors.destroy();
+        }
+
+        @Test
+        @DisplayName("should reject tasks at once if the lane is full")
+        void shouldRejectTasksIfLaneIsFull() {
+            // Given
+            CompletableFuture<String> runningExport = workloadExecutors.supplyAsync(Workload.EXPORT, this::slowExport);
+            CompletableFuture<String> queuedExport = workloadExecutors.supplyAsync(Workload.EXPORT, this::slowExport);
+
+            // When/then
+            assertThatThrownBy(() -> workloadExecutors.supplyAsync(Workload.EXPORT, this::slowExport))
+                    .isInstanceOf(TaskRejectedException.class);
+
+            exportsMayEnd.countDown();
+            assertThat(runningExport.join()).isEqualTo("export");
+            assertThat(queuedExport.join()).isEqualTo("export");
+        }
+
+        @Test
+        @DisplayName("should run tasks in other lanes while a lane is full")
+        void shouldRunTasksInOtherLanes() throws Exception {
+            // Given
+            workloadExecutors.supplyAsync(Workload.EXPORT, this::slowExport);
+            workloadExecutors.supplyAsync(Workload.EXPORT, this::slowExport);
+
+            // When
+            CompletableFuture<String> uiResult = workloadExecutors.supplyAsync(Workload.UI, () -> "ui");
+            CompletableFuture<String> apiResult = workloadExecutors.supplyAsync(Workload.API, () -> "api");
+
+            // Then
+            assertThat(uiResult.get(5, TimeUnit.SECONDS)).isEqualTo("ui");
+            assertThat(apiResult.get(5, TimeUnit.SECONDS)).isEqualTo("api");
+        }
+
+        @Test
+        @DisplayName("should run no more tasks at the same time than the lane has threads")
+        void shouldLimitConcurrencyToThreads() throws Exception {
+            // Given
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            Supplier<String> countingExport = () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                String result = slowExport();
+                running.decrementAndGet();
+                return result;
+            };
+
+            // When
+            CompletableFuture<String> firstExport = workloadExecutors.supplyAsync(Workload.EXPORT, countingExport);
+            CompletableFuture<String> secondExport = workloadExecutors.supplyAsync(Workload.EXPORT, countingExport);
+            Thread.sleep(100);
+            exportsMayEnd.countDown();
+
+            // Then
+            assertThat(firstExport.get(5, TimeUnit.SECONDS)).isEqualTo("export");
+            assertThat(secondExport.get(5, TimeUnit.SECONDS)).isEqualTo("export");
+            assertThat(maxRunning.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should count permits held outside of the lane against the threads of the lane")
+        void shouldCountPermitsHeldOutsideOfLane() throws Exception {
+            // Given
+            LanePermit permit = workloadExecutors.tryAcquirePermit(Workload.EXPORT).orElseThrow();
+
+            // When
+            CompletableFuture<String> export = workloadExecutors.supplyAsync(Workload.EXPORT, () -> "export");
+            Thread.sleep(100);
+
+            // Then
+            assertThat(workloadExecutors.tryAcquirePermit(Workload.EXPORT)).isEmpty();
+            assertThat(workloadExecutors.tryAcquirePermit(Workload.UI)).isPresent();
+            assertThat(export).isNotDone();
+
+            permit.close();
+            assertThat(export.get(5, TimeUnit.SECONDS)).isEqualTo("export");
+        }
+
+        protected String slowExport() {
+            try {
+                exportsMayEnd.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "export";
+        }
+    }
+
+    @Nested
+    @DisplayName("with platform threads")
+    class PlatformThreadLaneTest extends LaneTest {
+
+        @Override
+        protected boolean virtualThreads() {
+            return false;
+        }
+
+        @Test
+        @DisplayName("should run tasks on the platform threads of the lane")
+        void shouldRunTasksOnLaneThreads() throws Exception {
+            // When
+            Thread thread = workloadExecutors.supplyAsync(Workload.UI, Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(thread.getName()).startsWith("ui-");
+            assertThat(thread.isVirtual()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("with virtual threads")
+    class VirtualThreadLaneTest extends LaneTest {
+
+        @Override
+        protected boolean virtualThreads() {
+            return true;
+        }
+
+        @Test
+        @DisplayName("should run tasks on virtual threads of the lane")
+        void shouldRunTasksOnLaneThreads() throws Exception {
+            // When
+            Thread thread = workloadExecutors.supplyAsync(Workload.UI, Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(thread.getName()).startsWith("ui-");
+            assertThat(thread.isVirtual()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.todo.web;
+
+import eu.cdevreeze.todo.service.AddressService;
+import eu.cdevreeze.todo.service.AppointmentService;
+import eu.cdevreeze.todo.service.DataVersionService;
+import eu.cdevreeze.todo.service.SearchService;
+import eu.cdevreeze.todo.service.TaskService;
+import eu.cdevreeze.todo.web.controller.TodoRestController;
+import eu.cdevreeze.todo.web.messageconverter.MyHttpMessageConvertersConfiguration;
+import eu.cdevreeze.todo.web.workload.Workload;
+import eu.cdevreeze.todo.web.workload.WorkloadExecutors;
+import org.jspecify.annotations.NullUnmarked;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import org.springframework.test.web.servlet.assertj.MvcTestResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit test for the WorkloadRejectionHandler, going through the TodoRestController, with an API execution lane
+ * of 1 thread and no queue.
+ *
+ * @author Chris de Vreeze
+ */
+@WebMvcTest(
+        controllers = TodoRestController.class,
+        properties = {"todo.workload.api.threads=1", "todo.workload.api.queue-capacity=0"}
+)
+@Import({MyHttpMessageConvertersConfiguration.class, WorkloadExecutors.class})
+@ExtendWith(MockitoExtension.class)
+@NullUnmarked
+class WorkloadRejectionHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WorkloadExecutors workloadExecutors;
+
+    @MockitoBean
+    private TaskService taskService;
+
+    @MockitoBean
+    private AddressService addressService;
+
+    @MockitoBean
+    private AppointmentService appointmentService;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @MockitoBean
+    private DataVersionService dataVersionService;
+
+    @Test
+    @DisplayName("should reject a request with status 503 and a Retry-After header if its execution lane is full")
+    void shouldRejectRequestIfLaneIsFull() throws Exception {
+        MockMvcTester mockMvcTester = MockMvcTester.create(mockMvc);
+
+        // Given
+        when(dataVersionService.getVersion(any())).thenReturn("v1");
+        CountDownLatch taskStarted = new CountDownLatch(1);
+        CountDownLatch taskMayEnd = new CountDownLatch(1);
+        CompletableFuture<Boolean> blockingTask = workloadExecutors.supplyAsync(Workload.API, () -> {
+            taskStarted.countDown();
+            try {
+                return taskMayEnd.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertThat(taskStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // When
+            MvcTestResult mvcTestResult = mockMvcTester
+                    .get()
+                    .uri("/tasks.json")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+
+            // Then
+            assertThat(mvcTestResult)
+                    .hasStatus(HttpStatus.SERVICE_UNAVAILABLE)
+                    .hasHeader(HttpHeaders.RETRY_AFTER, "1");
+            verifyNoInteractions(taskService);
+        } finally {
+            taskMayEnd.countDown();
+        }
+        assertThat(blockingTask.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}